@@ -0,0 +1,18 @@
+package com.husc.productmanagement.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine caches for the hottest storefront reads. Size, TTL and stats recording are
+ * set by spring.cache.caffeine.spec; hit/miss counters are published by Actuator as
+ * the cache.gets metric. Entries are evicted by CatalogCacheEvictor when the data changes.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ACTIVE_CATEGORIES = "activeCategories";
+    public static final String ACTIVE_PRODUCTS = "activeProducts";
+    public static final String FEATURED_PRODUCTS = "featuredProducts";
+}
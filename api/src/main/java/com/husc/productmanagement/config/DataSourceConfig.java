@@ -0,0 +1,43 @@
+package com.husc.productmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Puts FairAcquireDataSource in front of the Hikari pool, sized from
+ * spring.datasource.hikari.maximum-pool-size and connection-timeout. Request threads
+ * (200 Tomcat threads, or one virtual thread per request) far outnumber the connections,
+ * so the wait for one is queued in arrival order instead of racing inside the pool.
+ * datasource.fair-acquire.nested-reserve connections are kept out of the permits for the
+ * second connection a transaction may open (the TABLE id generator). Off by default until
+ * it has been compared under load with virtual threads (ExecutionModeLoadBenchmark).
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.fair-acquire", havingValue = "true")
+public class DataSourceConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    // Static: post-processors are created before the beans they wrap
+    @Bean
+    public static BeanPostProcessor fairAcquireDataSourcePostProcessor(Environment environment) {
+        int nestedReserve = environment.getProperty("datasource.fair-acquire.nested-reserve", Integer.class, 2);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    // Unset until the pool starts, which then applies Hikari's default of 10
+                    int poolSize = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                    int reserve = Math.min(nestedReserve, poolSize - 1);
+                    return new FairAcquireDataSource(hikari, poolSize - reserve, reserve,
+                            hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
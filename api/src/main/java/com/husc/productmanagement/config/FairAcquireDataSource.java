@@ -0,0 +1,115 @@
+package com.husc.productmanagement.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets at most as many callers into the connection pool as it has connections, the others
+ * wait on a fair semaphore and get a connection in arrival order. Hikari hands a returned
+ * connection to whichever thread asks next, so with far more request threads than
+ * connections a request can keep losing to newer ones until its connection-timeout.
+ * A permit is held from getConnection until the connection is closed. A thread that
+ * already has a connection open takes a nested permit instead: the TABLE id generator
+ * opens a second connection inside the transaction, and queueing it behind threads that
+ * wait for the first one's permit would stall both. Nested permits come from the
+ * connections left out of the fair ones, so even a thread whose count is off (a leaked
+ * connection) can only ever draw on that reserve, never past the pool.
+ */
+public class FairAcquireDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final Semaphore nestedPermits;
+    private final long timeoutMillis;
+    // Open connections of the thread that opened them; the counter goes with the connection, so
+    // closing it on another thread (an async handoff) still counts down the opener's
+    private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public FairAcquireDataSource(DataSource target, int permits, int nestedPermits, long timeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.nestedPermits = new Semaphore(nestedPermits);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionSupplier target) throws SQLException {
+        AtomicInteger open = openConnections.get();
+        Semaphore held = open.get() > 0 ? nestedPermits : permits;
+        acquire(held);
+        try {
+            Connection connection = releasingOnClose(target.get(), open, held);
+            open.incrementAndGet();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            held.release();
+            throw e;
+        }
+    }
+
+    private void acquire(Semaphore semaphore) throws SQLException {
+        try {
+            if (!semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Connection is not available, request timed out after " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, AtomicInteger open, Semaphore held) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] { ConnectionProxy.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTargetConnection":
+                            return connection;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                if (closed.compareAndSet(false, true)) {
+                                    open.decrementAndGet();
+                                    held.release();
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,36 @@
+package com.husc.productmanagement.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds the id_generators rows used by the pooled table generators of Order and
+ * OrderDetail above the current MAX(id), so ids handed out by Hibernate never
+ * collide with rows inserted through AUTO_INCREMENT (e.g. sample_data.sql).
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class IdGeneratorInitializer implements InitializingBean {
+
+    // Must be at least the allocationSize of the generators, pooled ids are handed out below next_val
+    private static final int HEADROOM = 100;
+
+    private static final String[] TABLES = { "orders", "order_details" };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_generators (" +
+                "sequence_name VARCHAR(255) NOT NULL, next_val BIGINT, PRIMARY KEY (sequence_name))");
+        for (String table : TABLES) {
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) " +
+                    "SELECT ?, COALESCE(MAX(id), 0) + " + HEADROOM + " FROM " + table + " " +
+                    "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))", table);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.husc.productmanagement.config;
+
+import com.husc.productmanagement.util.JwtPrincipal;
+import com.husc.productmanagement.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer &lt;jwt&gt;". The principal is the
+ * JwtPrincipal built from the token claims, so no user row is read per request. A missing
+ * or invalid token leaves the request anonymous and the authorization rules decide.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    // role claim -> authorities, there are only a couple of roles
+    private final Map<String, List<GrantedAuthority>> authorities = new ConcurrentHashMap<>();
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            Optional<JwtPrincipal> principal = jwtUtil.validateAndExtract(header.substring(BEARER_PREFIX.length()).trim());
+            if (principal.isPresent()) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                        principal.get(), null, authoritiesOf(principal.get().getRole())));
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Authorization runs again on the dispatch that completes an async request (e.g. the order export)
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private List<GrantedAuthority> authoritiesOf(String role) {
+        if (role == null) {
+            return List.of();
+        }
+        return authorities.computeIfAbsent(role,
+                key -> List.of(new SimpleGrantedAuthority("ROLE_" + key.toUpperCase())));
+    }
+}
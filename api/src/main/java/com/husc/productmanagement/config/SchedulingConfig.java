@@ -0,0 +1,12 @@
+package com.husc.productmanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background jobs, e.g. the stock reservation sweeper and checkpoint.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,55 +1,123 @@
 package com.husc.productmanagement.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.husc.productmanagement.dto.ApiResponse;
+import com.husc.productmanagement.service.IdempotencyStore;
+import com.husc.productmanagement.util.JwtPrincipal;
+import com.husc.productmanagement.util.JwtUtil;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Set;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+            @Value("${idempotency.paths:/orders,/payments}") Set<String> idempotentPaths) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil), UsernamePasswordAuthenticationFilter.class)
+                // After authorization: keys are scoped to the user and rejected requests are never stored
+                .addFilterAfter(new IdempotencyFilter(idempotencyStore, objectMapper, idempotentPaths),
+                        AuthorizationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint((request, response, e) ->
+                                writeError(response, HttpStatus.UNAUTHORIZED, "Authentication required"))
+                        .accessDeniedHandler((request, response, e) ->
+                                writeError(response, HttpStatus.FORBIDDEN, "Access denied")))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**").permitAll()
+                        // Admin endpoints
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/dashboard/**", "/inventory/**", "/actuator/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/products/**", "/categories/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/products/**", "/categories/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/products/**", "/categories/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/products/**", "/categories/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/products/low-stock/stream").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/orders/export").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/orders/status", "/orders/{id}/status").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/ratings/rebuild-summaries").hasRole("ADMIN")
+                        // Per-user data: only the user in the path, or an admin
+                        .requestMatchers(HttpMethod.GET, "/users/{userId}").access(ownerOrAdmin())
+                        .requestMatchers(HttpMethod.PUT, "/users/{userId}", "/users/{userId}/change-password")
+                                .access(ownerOrAdmin())
+                        .requestMatchers("/users/**").hasRole("ADMIN")
+                        .requestMatchers("/cart/user/{userId}/**", "/wishlists/user/{userId}/**",
+                                "/orders/user/{userId}/**", "/payments/user/{userId}/**",
+                                "/user-addresses/user/{userId}/**").access(ownerOrAdmin())
                         .requestMatchers("/products/**").permitAll()
                         .requestMatchers("/categories/**").permitAll()
                         .requestMatchers("/orders/**").permitAll()
                         .requestMatchers("/ratings/**").permitAll()
-                        .requestMatchers("/users/**").permitAll()
                         .anyRequest().permitAll()); // Cho phép tất cả để test
 
         return http.build();
     }
 
+    // Compares the {userId} path variable with the userId claim of the token
+    private AuthorizationManager<RequestAuthorizationContext> ownerOrAdmin() {
+        return (authentication, context) -> {
+            Authentication auth = authentication.get();
+            if (auth == null || !(auth.getPrincipal() instanceof JwtPrincipal principal)) {
+                return new AuthorizationDecision(false);
+            }
+            boolean owner = String.valueOf(principal.getUserId()).equals(context.getVariables().get("userId"));
+            return new AuthorizationDecision(principal.isAdmin() || owner);
+        };
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Idempotent-Replayed"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
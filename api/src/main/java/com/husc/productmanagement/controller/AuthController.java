@@ -5,12 +5,15 @@ import com.husc.productmanagement.dto.LoginRequest;
 import com.husc.productmanagement.dto.LoginResponse;
 import com.husc.productmanagement.dto.UserDTO;
 import com.husc.productmanagement.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -19,16 +22,19 @@ public class AuthController {
 
     private final AuthService authService;
 
+    // Both endpoints complete asynchronously once the password hashing pool is done.
+    // getRemoteAddr is the client, not the proxy, when the request came through a trusted proxy (server.forward-headers-strategy)
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest) {
-        LoginResponse loginResponse = authService.login(loginRequest);
-        return ResponseEntity.ok(ApiResponse.success("Login successful", loginResponse));
+    public CompletableFuture<ResponseEntity<ApiResponse<LoginResponse>>> login(
+            @Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return authService.login(loginRequest, request.getRemoteAddr())
+                .thenApply(loginResponse -> ResponseEntity.ok(ApiResponse.success("Login successful", loginResponse)));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<UserDTO>> register(@Valid @RequestBody UserDTO userDTO) {
-        UserDTO registeredUser = authService.register(userDTO);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success("Registration successful", registeredUser));
+    public CompletableFuture<ResponseEntity<ApiResponse<UserDTO>>> register(@Valid @RequestBody UserDTO userDTO) {
+        return authService.register(userDTO)
+                .thenApply(registeredUser -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success("Registration successful", registeredUser)));
     }
 }
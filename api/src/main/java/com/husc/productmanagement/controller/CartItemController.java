@@ -49,6 +49,12 @@ public class CartItemController {
         return ResponseEntity.ok(ApiResponse.success("Product removed from cart", null));
     }
 
+    @PostMapping("/user/{userId}/checkout")
+    public ResponseEntity<ApiResponse<List<CartItemDTO>>> startCheckout(@PathVariable Integer userId) {
+        List<CartItemDTO> cart = cartItemService.startCheckout(userId);
+        return ResponseEntity.ok(ApiResponse.success("Cart items reserved for checkout", cart));
+    }
+
     @DeleteMapping("/user/{userId}/clear")
     public ResponseEntity<ApiResponse<Void>> clearCart(@PathVariable Integer userId) {
         cartItemService.clearCart(userId);
@@ -28,8 +28,14 @@ public class DashboardController {
 
     @GetMapping("/revenue")
     public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getRevenueByPeriod(
-            @RequestParam(defaultValue = "monthly") String period) {
-        Map<String, BigDecimal> revenue = dashboardService.getRevenueByPeriod(period);
+            @RequestParam(defaultValue = "monthly") String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String zone) {
+        Map<String, BigDecimal> revenue = from != null
+                ? dashboardService.getRevenue(from, to, granularity, zone)
+                : dashboardService.getRevenueByPeriod(period);
         return ResponseEntity.ok(ApiResponse.success(revenue));
     }
 
@@ -45,4 +51,10 @@ public class DashboardController {
         Map<String, Long> stats = dashboardService.getOrderStatsByStatus();
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
+
+    @PostMapping("/rebuild-aggregates")
+    public ResponseEntity<ApiResponse<Integer>> rebuildAggregates() {
+        int rows = dashboardService.rebuildAggregates();
+        return ResponseEntity.ok(ApiResponse.success("Dashboard aggregates rebuilt", rows));
+    }
 }
@@ -1,13 +1,23 @@
 package com.husc.productmanagement.controller;
 
 import com.husc.productmanagement.dto.ApiResponse;
+import com.husc.productmanagement.dto.BulkOrderStatusRequest;
 import com.husc.productmanagement.dto.OrderDTO;
+import com.husc.productmanagement.dto.OrderStatusResult;
+import com.husc.productmanagement.dto.PageResponse;
+import com.husc.productmanagement.service.OrderExportService;
 import com.husc.productmanagement.service.OrderService;
+import com.husc.productmanagement.util.JwtPrincipal;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,6 +28,7 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<OrderDTO>>> getAllOrders() {
@@ -25,6 +36,33 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<PageResponse<OrderDTO>>> getOrderPage(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<OrderDTO> orders = orderService.getOrderPage(page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
+    // Streamed on an async thread with the export's own timeout instead of the default async one
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportOrders(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String status,
+            HttpServletResponse response) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromValue(format);
+        StreamingResponseBody body = orderExportService.export(exportFormat, from, to, status);
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders." + exportFormat.getExtension() + "\"");
+        return new WebAsyncTask<>(orderExportService.getTimeout().toMillis(), () -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<OrderDTO>> getOrderById(@PathVariable Integer id) {
         OrderDTO order = orderService.getOrderById(id);
@@ -43,21 +81,49 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/customer/{email}/page")
+    public ResponseEntity<ApiResponse<PageResponse<OrderDTO>>> getOrderPageByEmail(
+            @PathVariable String email,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<OrderDTO> orders = orderService.getOrderPageByEmail(email, page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<List<OrderDTO>>> getOrdersByUserId(@PathVariable Integer userId) {
         List<OrderDTO> orders = orderService.getOrdersByUserId(userId);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<ApiResponse<PageResponse<OrderDTO>>> getOrderPageByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<OrderDTO> orders = orderService.getOrderPageByUserId(userId, page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<ApiResponse<List<OrderDTO>>> getOrdersByStatus(@PathVariable String status) {
         List<OrderDTO> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<ApiResponse<PageResponse<OrderDTO>>> getOrderPageByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<OrderDTO> orders = orderService.getOrderPageByStatus(status, page, size);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
     @PostMapping
-    public ResponseEntity<ApiResponse<OrderDTO>> createOrder(@Valid @RequestBody OrderDTO orderDTO) {
-        OrderDTO createdOrder = orderService.createOrder(orderDTO);
+    public ResponseEntity<ApiResponse<OrderDTO>> createOrder(@Valid @RequestBody OrderDTO orderDTO,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        OrderDTO createdOrder = orderService.createOrder(orderDTO, principal != null ? principal.getUserId() : null);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Order created successfully", createdOrder));
     }
@@ -70,6 +136,14 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success("Order status updated successfully", updatedOrder));
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<ApiResponse<List<OrderStatusResult>>> updateOrderStatuses(
+            @Valid @RequestBody BulkOrderStatusRequest request) {
+        List<OrderStatusResult> results = orderService.updateOrderStatuses(
+                request.getIds(), request.getOrderCodes(), request.getStatus());
+        return ResponseEntity.ok(ApiResponse.success("Order statuses updated", results));
+    }
+
     @DeleteMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<Void>> cancelOrder(@PathVariable Integer id) {
         orderService.cancelOrder(id);
@@ -1,6 +1,7 @@
 package com.husc.productmanagement.controller;
 
 import com.husc.productmanagement.dto.ApiResponse;
+import com.husc.productmanagement.dto.CursorPage;
 import com.husc.productmanagement.dto.PaymentDTO;
 import com.husc.productmanagement.dto.PaymentRequest;
 import com.husc.productmanagement.service.PaymentService;
@@ -45,6 +46,15 @@ public class PaymentController {
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<ApiResponse<CursorPage<PaymentDTO>>> getPaymentPageByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<PaymentDTO> payments = paymentService.getPaymentPageByUserId(userId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(payments));
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<PaymentDTO>>> getAllPayments() {
         List<PaymentDTO> payments = paymentService.getAllPayments();
@@ -1,13 +1,20 @@
 package com.husc.productmanagement.controller;
 
 import com.husc.productmanagement.dto.ApiResponse;
+import com.husc.productmanagement.dto.CursorPage;
 import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.dto.StockAvailabilityDTO;
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.service.LowStockAlertStream;
 import com.husc.productmanagement.service.ProductService;
+import com.husc.productmanagement.service.StockReservationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,6 +25,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final LowStockAlertStream lowStockAlertStream;
+    private final StockReservationService stockReservationService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getAllProducts() {
@@ -25,12 +34,31 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductDTO>>> getProductPage(
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> page = productService.getProductPage(null, null, sortBy, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     @GetMapping("/active")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getActiveProducts() {
         List<ProductDTO> products = productService.getActiveProducts();
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping("/active/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductDTO>>> getActiveProductPage(
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> page = productService.getProductPage(Product.Status.ACTIVE, null, sortBy, cursor,
+                size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ProductDTO>> getProductById(@PathVariable Integer id) {
         ProductDTO product = productService.getProductById(id);
@@ -43,6 +71,16 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping("/category/{categoryId}/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductDTO>>> getProductPageByCategory(
+            @PathVariable Integer categoryId,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> page = productService.getProductPage(null, categoryId, sortBy, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> searchProducts(@RequestParam String keyword) {
         List<ProductDTO> products = productService.searchProducts(keyword);
@@ -56,9 +94,10 @@ public class ProductController {
             @RequestParam(required = false) java.math.BigDecimal minPrice,
             @RequestParam(required = false) java.math.BigDecimal maxPrice,
             @RequestParam(required = false) Double minRating,
-            @RequestParam(required = false) String sortBy) {
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) Integer limit) {
         List<ProductDTO> products = productService.filterProducts(keyword, categoryId, minPrice, maxPrice, minRating,
-                sortBy);
+                sortBy, limit);
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
@@ -83,6 +122,12 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("Product deleted successfully", null));
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<ApiResponse<StockAvailabilityDTO>> getAvailability(@PathVariable Integer id) {
+        StockAvailabilityDTO availability = stockReservationService.getAvailability(id);
+        return ResponseEntity.ok(ApiResponse.success(availability));
+    }
+
     @GetMapping("/featured")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getFeaturedProducts() {
         List<ProductDTO> products = productService.getFeaturedProducts();
@@ -94,4 +139,17 @@ public class ProductController {
         List<ProductDTO> products = productService.getLowStockProducts();
         return ResponseEntity.ok(ApiResponse.success(products));
     }
+
+    @GetMapping("/low-stock/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductDTO>>> getLowStockPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> page = productService.getLowStockPage(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts() {
+        return lowStockAlertStream.subscribe();
+    }
 }
@@ -43,4 +43,11 @@ public class ProductRatingController {
         ratingService.deleteRating(id);
         return ResponseEntity.ok(ApiResponse.success("Rating deleted successfully", null));
     }
+
+    @PostMapping("/rebuild-summaries")
+    public ResponseEntity<ApiResponse<Integer>> rebuildRatingSummaries(
+            @RequestParam(defaultValue = "1000") Integer chunkSize) {
+        int updated = ratingService.rebuildRatingSummaries(chunkSize);
+        return ResponseEntity.ok(ApiResponse.success("Rating summaries rebuilt", updated));
+    }
 }
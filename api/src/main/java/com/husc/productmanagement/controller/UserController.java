@@ -3,12 +3,15 @@ package com.husc.productmanagement.controller;
 import com.husc.productmanagement.dto.ApiResponse;
 import com.husc.productmanagement.dto.UserDTO;
 import com.husc.productmanagement.service.UserService;
+import com.husc.productmanagement.util.JwtPrincipal;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/users")
@@ -30,12 +33,14 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(user));
     }
 
+    // Completes asynchronously when a new password has to be hashed
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserDTO>> updateUser(
+    public CompletableFuture<ResponseEntity<ApiResponse<UserDTO>>> updateUser(
             @PathVariable Integer id,
-            @Valid @RequestBody UserDTO userDTO) {
-        UserDTO updatedUser = userService.updateUser(id, userDTO);
-        return ResponseEntity.ok(ApiResponse.success("User updated successfully", updatedUser));
+            @Valid @RequestBody UserDTO userDTO,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        return userService.updateUser(id, userDTO, principal != null && principal.isAdmin())
+                .thenApply(updatedUser -> ResponseEntity.ok(ApiResponse.success("User updated successfully", updatedUser)));
     }
 
     @DeleteMapping("/{id}")
@@ -45,10 +50,10 @@ public class UserController {
     }
 
     @PutMapping("/{id}/change-password")
-    public ResponseEntity<ApiResponse<Void>> changePassword(
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> changePassword(
             @PathVariable Integer id,
             @Valid @RequestBody com.husc.productmanagement.dto.ChangePasswordRequest request) {
-        userService.changePassword(id, request);
-        return ResponseEntity.ok(ApiResponse.success("Password changed successfully", null));
+        return userService.changePassword(id, request)
+                .thenApply(done -> ResponseEntity.ok(ApiResponse.<Void>success("Password changed successfully", null)));
     }
 }
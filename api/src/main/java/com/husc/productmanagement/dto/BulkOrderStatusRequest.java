@@ -0,0 +1,22 @@
+package com.husc.productmanagement.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+
+    // Orders to move, by id and/or by order code
+    private List<Integer> ids;
+
+    private List<String> orderCodes;
+
+    @NotBlank(message = "Status is required")
+    private String status;
+}
@@ -1,5 +1,6 @@
 package com.husc.productmanagement.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,4 +17,7 @@ public class CategoryDTO {
     private String name;
 
     private String status;
+
+    @Min(value = 0, message = "Reorder threshold must be at least 0")
+    private Integer reorderThreshold;
 }
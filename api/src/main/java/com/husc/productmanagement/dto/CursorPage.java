@@ -0,0 +1,22 @@
+package com.husc.productmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    private Integer size;
+
+    private boolean hasMore;
+
+    // Opaque token to pass back as ?cursor= for the next page, null on the last page
+    private String nextCursor;
+}
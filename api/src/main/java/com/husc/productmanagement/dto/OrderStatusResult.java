@@ -0,0 +1,24 @@
+package com.husc.productmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one order of a bulk status change
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResult {
+
+    private Integer id;
+
+    private String orderCode;
+
+    private String previousStatus;
+
+    private String status;
+
+    private boolean updated;
+
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.husc.productmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+
+    private List<T> items;
+
+    private int page;
+
+    private int size;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    public static <T> PageResponse<T> of(Page<?> page, List<T> items) {
+        return new PageResponse<>(items, page.getNumber(), page.getSize(), page.getTotalElements(),
+                page.getTotalPages());
+    }
+}
@@ -9,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -35,6 +36,9 @@ public class ProductDTO {
     @Min(value = 0, message = "Quantity must be at least 0")
     private Integer quantity;
 
+    @Min(value = 0, message = "Reorder threshold must be at least 0")
+    private Integer reorderThreshold;
+
     private String status;
 
     @NotNull(message = "Category ID is required")
@@ -45,4 +49,6 @@ public class ProductDTO {
     private Double averageRating;
 
     private Long totalRatings;
+
+    private Map<Integer, Long> ratingDistribution;
 }
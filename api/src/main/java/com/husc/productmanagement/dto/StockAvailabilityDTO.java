@@ -0,0 +1,22 @@
+package com.husc.productmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityDTO {
+
+    private Integer productId;
+
+    // Committed quantity in stock
+    private Integer quantity;
+
+    // Held by carts and checkouts in progress
+    private Integer reserved;
+
+    // quantity - reserved
+    private Integer available;
+}
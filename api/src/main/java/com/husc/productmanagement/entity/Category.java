@@ -24,6 +24,10 @@ public class Category {
     @Column(nullable = false, length = 100)
     private String name;
 
+    // Default low-stock threshold for the products of this category
+    @Column(name = "reorder_threshold")
+    private Integer reorderThreshold;
+
     @Convert(converter = com.husc.productmanagement.entity.converter.CategoryStatusConverter.class)
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
@@ -14,8 +14,11 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class OrderDetail {
 
+    // Table-backed pooled ids (see IdGeneratorInitializer) so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_detail_id_generator")
+    @TableGenerator(name = "order_detail_id_generator", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_details", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,28 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Number and total amount of orders per status, maintained by DashboardAggregateService
+@Entity
+@Table(name = "order_status_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusStat {
+
+    // Stored as the lowercase status value, same as orders.status
+    @Id
+    @Column(length = 20)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+}
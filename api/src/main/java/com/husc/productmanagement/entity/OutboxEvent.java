@@ -0,0 +1,132 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Side effect of an order change, written in the same transaction and run after commit by OutboxDispatcher
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_id", columnList = "status, id"),
+        @Index(name = "idx_outbox_events_aggregate_status_id", columnList = "aggregate_id, status, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Convert(converter = TypeConverter.class)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private Type type;
+
+    // Events of the same aggregate (order id) are handled one at a time, in id order
+    @Column(name = "aggregate_id", nullable = false)
+    private Integer aggregateId;
+
+    // JSON object of string values
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Convert(converter = StatusConverter.class)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum Type {
+        ORDER_CREATED("order_created"),
+        ORDER_STATUS_CHANGED("order_status_changed");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Type fromValue(String value) {
+            for (Type type : Type.values()) {
+                if (type.value.equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown outbox event type: " + value);
+        }
+    }
+
+    public enum Status {
+        PENDING("pending"),
+        DONE("done"),
+        FAILED("failed");
+
+        private final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Status fromValue(String value) {
+            for (Status status : Status.values()) {
+                if (status.value.equalsIgnoreCase(value) || status.name().equalsIgnoreCase(value)) {
+                    return status;
+                }
+            }
+            throw new IllegalArgumentException("Unknown outbox event status: " + value);
+        }
+    }
+
+    @Converter
+    public static class TypeConverter implements AttributeConverter<Type, String> {
+        @Override
+        public String convertToDatabaseColumn(Type attribute) {
+            return (attribute == null) ? null : attribute.getValue();
+        }
+
+        @Override
+        public Type convertToEntityAttribute(String dbData) {
+            return (dbData == null) ? null : Type.fromValue(dbData);
+        }
+    }
+
+    @Converter
+    public static class StatusConverter implements AttributeConverter<Status, String> {
+        @Override
+        public String convertToDatabaseColumn(Status attribute) {
+            return (attribute == null) ? null : attribute.getValue();
+        }
+
+        @Override
+        public Status convertToEntityAttribute(String dbData) {
+            return (dbData == null) ? null : Status.fromValue(dbData);
+        }
+    }
+}
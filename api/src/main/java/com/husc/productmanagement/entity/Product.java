@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -12,7 +14,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_status_id", columnList = "status, id"),
+        @Index(name = "idx_products_status_price_id", columnList = "status, price, id"),
+        @Index(name = "idx_products_status_created_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_products_category_price_id", columnList = "category_id, price, id"),
+        @Index(name = "idx_products_category_created_id", columnList = "category_id, created_at, id"),
+        @Index(name = "idx_products_status_quantity_id", columnList = "status, quantity, id"),
+        @Index(name = "idx_products_reorder_threshold", columnList = "reorder_threshold")
+})
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +53,10 @@ public class Product {
     @Column(nullable = false)
     private Integer quantity = 0;
 
+    // Low-stock threshold; null falls back to the category, then to product.low-stock.default-threshold
+    @Column(name = "reorder_threshold")
+    private Integer reorderThreshold;
+
     @Convert(converter = com.husc.productmanagement.entity.converter.ProductStatusConverter.class)
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
@@ -48,6 +65,35 @@ public class Product {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
+    // Rating summary, maintained by ProductRatingService on every rating write
+    @Column(name = "rating_sum", nullable = false)
+    @ColumnDefault("0")
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_1_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false)
+    @ColumnDefault("0")
+    private Integer rating5Count = 0;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -62,6 +108,10 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private List<ProductRating> ratings;
 
+    public Double getAverageRating() {
+        return ratingCount != null && ratingCount > 0 ? ratingSum.doubleValue() / ratingCount : null;
+    }
+
     public enum Status {
         ACTIVE("active"),
         INACTIVE("inactive");
@@ -0,0 +1,44 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Units sold and revenue per product and order date, maintained by DashboardAggregateService
+@Entity
+@Table(name = "product_sales_daily", indexes = {
+        @Index(name = "idx_product_sales_daily_date", columnList = "sales_date, product_id")
+})
+@IdClass(ProductSalesDaily.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDaily {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "quantity_sold", nullable = false)
+    private Long quantitySold = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer productId;
+        private LocalDate salesDate;
+    }
+}
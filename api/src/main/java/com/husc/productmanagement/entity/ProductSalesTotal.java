@@ -0,0 +1,29 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// All-time units sold and revenue per product, maintained by DashboardAggregateService
+@Entity
+@Table(name = "product_sales_totals", indexes = {
+        @Index(name = "idx_product_sales_totals_sold", columnList = "quantity_sold")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesTotal {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "quantity_sold", nullable = false)
+    private Long quantitySold = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+}
@@ -0,0 +1,54 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Revenue of paid/shipped orders per time bucket, maintained by RevenueRollupService.
+// HOUR buckets start on UTC hours, DAY and MONTH buckets on local midnight in the business zone.
+@Entity
+@Table(name = "revenue_rollups")
+@IdClass(RevenueRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollup {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        public static Granularity fromValue(String value) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(value)) {
+                    return granularity;
+                }
+            }
+            throw new RuntimeException("Unsupported granularity: " + value);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Granularity granularity;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,48 @@
+package com.husc.productmanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Checkpoint of the active stock holds of StockReservationService, reloaded on startup by the same node
+@Entity
+@Table(name = "stock_reservations")
+@IdClass(StockReservation.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    // order.code.node-id of the instance holding the stock
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    // e.g. user:12 for a cart, order:ORD... for a guest checkout
+    @Id
+    @Column(length = 64)
+    private String owner;
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer nodeId;
+        private String owner;
+        private Integer productId;
+    }
+}
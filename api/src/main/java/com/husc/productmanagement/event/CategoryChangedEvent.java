@@ -0,0 +1,18 @@
+package com.husc.productmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by CategoryService when a category is created, updated or deleted.
+ */
+@Data
+@AllArgsConstructor
+public class CategoryChangedEvent {
+
+    private Integer categoryId;
+
+    private String name;
+
+    private boolean deleted;
+}
@@ -0,0 +1,24 @@
+package com.husc.productmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by LowStockAlertPublisher when a product's quantity crosses its reorder
+ * threshold: low is true when it drops to or below the threshold, false when it is
+ * restocked above it.
+ */
+@Data
+@AllArgsConstructor
+public class LowStockEvent {
+
+    private Integer productId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private Integer threshold;
+
+    private boolean low;
+}
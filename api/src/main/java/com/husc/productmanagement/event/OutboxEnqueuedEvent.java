@@ -0,0 +1,8 @@
+package com.husc.productmanagement.event;
+
+/**
+ * Published by OutboxService when it writes an outbox event, so the dispatcher can run it
+ * as soon as the transaction commits instead of waiting for the next poll.
+ */
+public class OutboxEnqueuedEvent {
+}
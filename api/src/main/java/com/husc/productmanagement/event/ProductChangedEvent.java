@@ -0,0 +1,29 @@
+package com.husc.productmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by ProductService whenever a product is created, updated or deleted.
+ * Carries the searchable fields so listeners do not need to reload the row.
+ */
+@Data
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    private Integer productId;
+
+    private String name;
+
+    private String description;
+
+    private Integer categoryId;
+
+    private String categoryName;
+
+    private boolean deleted;
+
+    public static ProductChangedEvent deleted(Integer productId) {
+        return new ProductChangedEvent(productId, null, null, null, null, true);
+    }
+}
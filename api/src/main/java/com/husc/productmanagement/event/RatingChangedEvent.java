@@ -0,0 +1,14 @@
+package com.husc.productmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by ProductRatingService when a rating is added or removed.
+ */
+@Data
+@AllArgsConstructor
+public class RatingChangedEvent {
+
+    private Integer productId;
+}
@@ -0,0 +1,17 @@
+package com.husc.productmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collection;
+
+/**
+ * Published whenever product quantities change outside ProductService, i.e. by
+ * inventory logs, order creation and order cancellation.
+ */
+@Data
+@AllArgsConstructor
+public class StockChangedEvent {
+
+    private Collection<Integer> productIds;
+}
@@ -2,8 +2,11 @@ package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,12 @@ public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
     Optional<CartItem> findByUserIdAndProductId(Integer userId, Integer productId);
 
     void deleteByUserId(Integer userId);
+
+    // Lines of a cart as (id, productId, quantity), oldest first
+    @Query("SELECT c.id, c.product.id, c.quantity FROM CartItem c WHERE c.user.id = :userId ORDER BY c.id")
+    List<Object[]> findLinesByUserId(@Param("userId") Integer userId);
+
+    // (userId, productId, id) of every line of the given carts
+    @Query("SELECT c.user.id, c.product.id, c.id FROM CartItem c WHERE c.user.id IN :userIds")
+    List<Object[]> findIdsByUserIds(@Param("userIds") Collection<Integer> userIds);
 }
@@ -2,6 +2,7 @@ package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +13,7 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     List<Category> findByStatus(Category.Status status);
 
     boolean existsByName(String name);
+
+    @Query("SELECT MAX(c.reorderThreshold) FROM Category c")
+    Integer findMaxReorderThreshold();
 }
@@ -2,8 +2,11 @@ package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.OrderDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +15,12 @@ public interface OrderDetailRepository extends JpaRepository<OrderDetail, Intege
     List<OrderDetail> findByOrderId(Integer orderId);
 
     List<OrderDetail> findByProductId(Integer productId);
+
+    @Query("SELECT d FROM OrderDetail d JOIN FETCH d.product WHERE d.order.id IN :orderIds ORDER BY d.id")
+    List<OrderDetail> findWithProductByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+
+    // (productId, total quantity) over the lines of the orders, in product id order
+    @Query("SELECT d.product.id, SUM(d.quantity) FROM OrderDetail d WHERE d.order.id IN :orderIds " +
+            "GROUP BY d.product.id ORDER BY d.product.id")
+    List<Object[]> sumQuantityByProductForOrders(@Param("orderIds") Collection<Integer> orderIds);
 }
@@ -1,9 +1,17 @@
 package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +27,42 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByCustomerNameContaining(String customerName);
 
     List<Order> findByUserId(Integer userId);
+
+    List<Order> findTop10ByOrderByCreatedAtDescIdDesc();
+
+    long countByStatusIn(Collection<Order.Status> statuses);
+
+    // {id, createdAt, totalAmount} of the next orders after afterId, for walking the table in id chunks
+    @Query("SELECT o.id, o.createdAt, o.totalAmount FROM Order o WHERE o.status IN :statuses AND o.id > :afterId "
+            + "ORDER BY o.id")
+    List<Object[]> findRevenueRowsAfter(@Param("statuses") Collection<Order.Status> statuses,
+            @Param("afterId") Integer afterId, Pageable pageable);
+
+    Page<Order> findByStatus(Order.Status status, Pageable pageable);
+
+    Page<Order> findByEmail(String email, Pageable pageable);
+
+    Page<Order> findByUserId(Integer userId, Pageable pageable);
+
+    // Moves an order to a new status only if it is still in one of the expected statuses
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.id = :id AND o.status IN :expectedStatuses")
+    int updateStatusIfIn(
+            @Param("id") Integer id,
+            @Param("newStatus") Order.Status newStatus,
+            @Param("expectedStatuses") Collection<Order.Status> expectedStatuses);
+
+    // Locks the orders in id order, so concurrent bulk changes cannot deadlock or see stale statuses
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids OR o.orderCode IN :orderCodes ORDER BY o.id")
+    List<Order> findForUpdate(@Param("ids") Collection<Integer> ids, @Param("orderCodes") Collection<String> orderCodes);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.id IN :ids AND o.status IN :expectedStatuses")
+    int updateStatusIfIn(
+            @Param("ids") Collection<Integer> ids,
+            @Param("newStatus") Order.Status newStatus,
+            @Param("expectedStatuses") Collection<Order.Status> expectedStatuses);
 }
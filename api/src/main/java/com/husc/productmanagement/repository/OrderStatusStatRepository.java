@@ -0,0 +1,30 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.OrderStatusStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface OrderStatusStatRepository extends JpaRepository<OrderStatusStat, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_stats (status, order_count, total_amount) " +
+            "VALUES (:status, :count, :amount) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + :count, total_amount = total_amount + :amount",
+            nativeQuery = true)
+    void addOrders(
+            @Param("status") String status,
+            @Param("count") long count,
+            @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_stats (status, order_count, total_amount) " +
+            "SELECT status, COUNT(*), SUM(total_amount) FROM orders GROUP BY status",
+            nativeQuery = true)
+    int rebuildFromOrders();
+}
@@ -0,0 +1,43 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByStatusOrderByIdAsc(OutboxEvent.Status status, Pageable pageable);
+
+    // Pending events that may run now: neither they nor an earlier pending event of their order is backing off
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :pending AND NOT EXISTS (" +
+            "SELECT b.id FROM OutboxEvent b WHERE b.aggregateId = e.aggregateId AND b.status = :pending " +
+            "AND b.id <= e.id AND b.availableAt > :now) ORDER BY e.id")
+    List<OutboxEvent> findRunnable(@Param("pending") OutboxEvent.Status pending, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // Claims a pending event; 0 means another dispatcher already handled it
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :done, e.processedAt = :now " +
+            "WHERE e.id = :id AND e.status = :pending")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now,
+            @Param("pending") OutboxEvent.Status pending, @Param("done") OutboxEvent.Status done);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.availableAt = :availableAt, " +
+            "e.lastError = :lastError WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("status") OutboxEvent.Status status,
+            @Param("attempts") Integer attempts, @Param("availableAt") LocalDateTime availableAt,
+            @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxEvent.Status status, @Param("before") LocalDateTime before);
+}
@@ -1,9 +1,15 @@
 package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +17,41 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
     List<Payment> findByOrderId(Integer orderId);
 
+    List<Payment> findByOrderIdIn(Collection<Integer> orderIds);
+
     List<Payment> findByStatus(Payment.Status status);
+
+    // Moves the order's payments in one status to another, stamping paidAt if it is not set yet
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.paidAt = COALESCE(p.paidAt, :now) " +
+            "WHERE p.order.id = :orderId AND p.status = :from")
+    int updateStatusByOrderId(@Param("orderId") Integer orderId, @Param("from") Payment.Status from,
+            @Param("to") Payment.Status to, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.paidAt = COALESCE(p.paidAt, :now) " +
+            "WHERE p.order.id IN :orderIds AND p.status = :from")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds, @Param("from") Payment.Status from,
+            @Param("to") Payment.Status to, @Param("now") LocalDateTime now);
+
+    // Payments of a user as (id, orderId, amount, paymentMethod, status, paidAt, orderCreatedAt),
+    // newest order first, in one join instead of one query per order
+    @Query("SELECT p.id, o.id, p.amount, p.paymentMethod, p.status, p.paidAt, o.createdAt " +
+            "FROM Payment p JOIN p.order o WHERE o.user.id = :userId " +
+            "ORDER BY o.createdAt DESC, p.id DESC")
+    List<Object[]> findRowsByUserId(@Param("userId") Integer userId);
+
+    @Query("SELECT p.id, o.id, p.amount, p.paymentMethod, p.status, p.paidAt, o.createdAt " +
+            "FROM Payment p JOIN p.order o WHERE o.user.id = :userId " +
+            "ORDER BY o.createdAt DESC, p.id DESC")
+    List<Object[]> findRowsByUserId(@Param("userId") Integer userId, Pageable limit);
+
+    @Query("SELECT p.id, o.id, p.amount, p.paymentMethod, p.status, p.paidAt, o.createdAt " +
+            "FROM Payment p JOIN p.order o WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND p.id < :afterId)) " +
+            "ORDER BY o.createdAt DESC, p.id DESC")
+    List<Object[]> findRowsByUserIdAfter(@Param("userId") Integer userId,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Integer afterId,
+            Pageable limit);
 }
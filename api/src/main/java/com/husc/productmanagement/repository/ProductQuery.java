@@ -0,0 +1,39 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.Product;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Parameters for {@link ProductRepositoryCustom#findByQuery}. Only the fields
+ * that are set become predicates.
+ */
+@Data
+public class ProductQuery {
+
+    private Product.Status status;
+
+    private Integer categoryId;
+
+    private String keyword;
+
+    // Restricts the result to these ids, e.g. candidates from the search index
+    private Collection<Integer> ids;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private Double minRating;
+
+    private ProductSort sort = ProductSort.ID;
+
+    // Keyset position: the sort value and id of the last row of the previous page
+    private Comparable<?> afterValue;
+
+    private Integer afterId;
+
+    private Integer limit;
+}
@@ -1,22 +1,36 @@
 package com.husc.productmanagement.repository;
 
 import com.husc.productmanagement.entity.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductRepositoryCustom {
 
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAll();
+
+    @EntityGraph(attributePaths = "category")
     List<Product> findByStatus(Product.Status status);
 
+    @EntityGraph(attributePaths = "category")
     List<Product> findByCategoryId(Integer categoryId);
 
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByIdIn(Collection<Integer> ids);
+
     List<Product> findByCategoryIdAndStatus(Integer categoryId, Product.Status status);
 
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:keyword% OR p.category.name LIKE %:keyword%")
     List<Product> searchByKeyword(@Param("keyword") String keyword);
 
@@ -24,14 +38,110 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     List<Product> findByPriceRange(@Param("minPrice") java.math.BigDecimal minPrice,
             @Param("maxPrice") java.math.BigDecimal maxPrice);
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:keyword IS NULL OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%) AND " +
-            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice)")
-    List<Product> findWithFilters(
-            @Param("keyword") String keyword,
-            @Param("categoryId") Integer categoryId,
-            @Param("minPrice") java.math.BigDecimal minPrice,
-            @Param("maxPrice") java.math.BigDecimal maxPrice);
+    // Low stock: quantity <= product threshold, else category threshold, else the default.
+    // The quantity <= :maxThreshold bound lets MySQL range-scan idx_products_status_quantity_id.
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.status = :status " +
+            "AND p.quantity <= :maxThreshold " +
+            "AND p.quantity <= COALESCE(p.reorderThreshold, c.reorderThreshold, :defaultThreshold) " +
+            "ORDER BY p.quantity, p.id")
+    List<Product> findLowStock(
+            @Param("status") Product.Status status,
+            @Param("defaultThreshold") int defaultThreshold,
+            @Param("maxThreshold") int maxThreshold,
+            Pageable pageable);
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.status = :status " +
+            "AND p.quantity <= :maxThreshold " +
+            "AND p.quantity <= COALESCE(p.reorderThreshold, c.reorderThreshold, :defaultThreshold) " +
+            "AND (p.quantity > :afterQuantity OR (p.quantity = :afterQuantity AND p.id > :afterId)) " +
+            "ORDER BY p.quantity, p.id")
+    List<Product> findLowStockAfter(
+            @Param("status") Product.Status status,
+            @Param("defaultThreshold") int defaultThreshold,
+            @Param("maxThreshold") int maxThreshold,
+            @Param("afterQuantity") int afterQuantity,
+            @Param("afterId") int afterId,
+            Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p JOIN p.category c WHERE p.status = :status " +
+            "AND p.quantity <= :maxThreshold " +
+            "AND p.quantity <= COALESCE(p.reorderThreshold, c.reorderThreshold, :defaultThreshold)")
+    List<Integer> findLowStockIds(
+            @Param("status") Product.Status status,
+            @Param("defaultThreshold") int defaultThreshold,
+            @Param("maxThreshold") int maxThreshold);
+
+    // id, name, quantity and effective threshold of the given products in a status
+    @Query("SELECT p.id, p.name, p.quantity, COALESCE(p.reorderThreshold, c.reorderThreshold, :defaultThreshold) " +
+            "FROM Product p JOIN p.category c WHERE p.id IN :ids AND p.status = :status")
+    List<Object[]> findStockLevels(
+            @Param("ids") Collection<Integer> ids,
+            @Param("status") Product.Status status,
+            @Param("defaultThreshold") int defaultThreshold);
+
+    // id and quantity of the given products
+    @Query("SELECT p.id, p.quantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findQuantities(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.quantity <= 0")
+    List<Integer> findOutOfStockIds();
+
+    @Query("SELECT MAX(p.reorderThreshold) FROM Product p")
+    Integer findMaxReorderThreshold();
+
+    // Stock changes are single conditional UPDATEs; the affected row count tells the caller whether it applied
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount, p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :productId AND p.quantity >= :amount")
+    int decrementStock(@Param("productId") Integer productId, @Param("amount") int amount);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :amount, p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Integer productId, @Param("amount") int amount);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :delta, p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :productId AND p.quantity + :delta >= 0")
+    int adjustStock(@Param("productId") Integer productId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingSum = p.ratingSum + :sumDelta, p.ratingCount = p.ratingCount + :countDelta, " +
+            "p.rating1Count = p.rating1Count + :delta1, p.rating2Count = p.rating2Count + :delta2, " +
+            "p.rating3Count = p.rating3Count + :delta3, p.rating4Count = p.rating4Count + :delta4, " +
+            "p.rating5Count = p.rating5Count + :delta5 WHERE p.id = :productId")
+    int applyRatingDelta(
+            @Param("productId") Integer productId,
+            @Param("sumDelta") long sumDelta,
+            @Param("countDelta") int countDelta,
+            @Param("delta1") int delta1,
+            @Param("delta2") int delta2,
+            @Param("delta3") int delta3,
+            @Param("delta4") int delta4,
+            @Param("delta5") int delta5);
+
+    // id, ratingSum and ratingCount of the rated products in a status
+    @Query("SELECT p.id, p.ratingSum, p.ratingCount FROM Product p WHERE p.status = :status AND p.ratingCount > 0")
+    List<Object[]> findRatingSummariesByStatus(@Param("status") Product.Status status);
+
+    // ratingSum and ratingCount of one product in a status, read from the row rather than the persistence context
+    @Query("SELECT p.ratingSum, p.ratingCount FROM Product p WHERE p.id = :productId AND p.status = :status")
+    List<Object[]> findRatingSummary(@Param("productId") Integer productId, @Param("status") Product.Status status);
+
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Integer findMaxId();
+
+    // Recomputes the rating summary columns of one id range from product_ratings; plain correlated
+    // subqueries on the product_id index, so the statement also runs outside MySQL (e.g. the H2 tests)
+    @Modifying
+    @Query(value = "UPDATE products p SET " +
+            "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM product_ratings r WHERE r.product_id = p.id), " +
+            "rating_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id), " +
+            "rating_1_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id AND r.rating = 1), " +
+            "rating_2_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id AND r.rating = 2), " +
+            "rating_3_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id AND r.rating = 3), " +
+            "rating_4_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id AND r.rating = 4), " +
+            "rating_5_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = p.id AND r.rating = 5) " +
+            "WHERE p.id BETWEEN :fromId AND :toId", nativeQuery = true)
+    int rebuildRatingSummaries(@Param("fromId") Integer fromId, @Param("toId") Integer toId);
 }
@@ -0,0 +1,19 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    List<Product> findByQuery(ProductQuery query);
+
+    /**
+     * Applies the conditional stock decrement for several products in one JDBC batch.
+     *
+     * @param amounts quantity to take per product id
+     * @return ids of the products that did not have enough stock
+     */
+    List<Integer> decrementStock(Map<Integer, Integer> amounts);
+}
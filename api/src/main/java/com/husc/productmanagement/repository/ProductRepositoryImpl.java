@@ -0,0 +1,143 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK_SQL = "UPDATE products SET quantity = quantity - ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND quantity >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findByQuery(ProductQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> cq = cb.createQuery(Product.class);
+        Root<Product> product = cq.from(Product.class);
+        product.fetch("category");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getStatus() != null) {
+            predicates.add(cb.equal(product.get("status"), query.getStatus()));
+        }
+        if (query.getCategoryId() != null) {
+            predicates.add(cb.equal(product.get("category").get("id"), query.getCategoryId()));
+        }
+        if (query.getIds() != null) {
+            predicates.add(product.get("id").in(query.getIds()));
+        }
+        if (query.getKeyword() != null && !query.getKeyword().isBlank()) {
+            String pattern = "%" + query.getKeyword().trim() + "%";
+            predicates.add(cb.or(
+                    cb.like(product.get("name"), pattern),
+                    cb.like(product.get("description"), pattern)));
+        }
+        if (query.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(product.get("price"), query.getMinPrice()));
+        }
+        if (query.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(product.get("price"), query.getMaxPrice()));
+        }
+        if (query.getMinRating() != null) {
+            // ratingSum >= minRating * ratingCount avoids dividing on every row
+            Expression<Integer> ratingCount = product.get("ratingCount");
+            Expression<Long> ratingSum = product.get("ratingSum");
+            predicates.add(cb.greaterThan(ratingCount, 0));
+            predicates.add(cb.ge(ratingSum, cb.prod(ratingCount, query.getMinRating())));
+        }
+
+        ProductSort sort = query.getSort() != null ? query.getSort() : ProductSort.ID;
+        if (query.getAfterId() != null) {
+            if (!sort.isKeysetSupported()) {
+                throw new RuntimeException("Cursor pagination is not supported for sort: " + sort.name().toLowerCase());
+            }
+            predicates.add(keysetPredicate(cb, product, sort, query.getAfterValue(), query.getAfterId()));
+        }
+
+        cq.select(product).where(predicates.toArray(new Predicate[0]));
+        cq.orderBy(orderBy(cb, product, sort));
+
+        TypedQuery<Product> typedQuery = entityManager.createQuery(cq);
+        if (query.getLimit() != null) {
+            typedQuery.setMaxResults(query.getLimit());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Integer> decrementStock(Map<Integer, Integer> amounts) {
+        List<Integer> productIds = new ArrayList<>(amounts.keySet());
+        int[] updated = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DECREMENT_STOCK_SQL)) {
+                for (Integer productId : productIds) {
+                    int amount = amounts.get(productId);
+                    statement.setInt(1, amount);
+                    statement.setInt(2, productId);
+                    statement.setInt(3, amount);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                failed.add(productIds.get(i));
+            }
+        }
+        return failed;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate keysetPredicate(CriteriaBuilder cb, Root<Product> product, ProductSort sort,
+            Comparable afterValue, Integer afterId) {
+        Expression<Integer> id = product.get("id");
+        Predicate idAfter = sort.isAscending() ? cb.greaterThan(id, afterId) : cb.lessThan(id, afterId);
+        if (sort == ProductSort.ID) {
+            return idAfter;
+        }
+
+        // (value, id) > (afterValue, afterId), spelled out so MySQL can range-scan the composite index
+        Expression<Comparable> value = product.get(sort.getAttribute());
+        Predicate valueAfter = sort.isAscending()
+                ? cb.greaterThan(value, afterValue)
+                : cb.lessThan(value, afterValue);
+        return cb.or(valueAfter, cb.and(cb.equal(value, afterValue), idAfter));
+    }
+
+    private List<Order> orderBy(CriteriaBuilder cb, Root<Product> product, ProductSort sort) {
+        List<Order> orders = new ArrayList<>();
+        if (sort == ProductSort.RATING) {
+            // Unrated products rank as 0, same as the previous in-memory sort
+            Expression<Integer> ratingCount = product.get("ratingCount");
+            Expression<Long> ratingSum = product.get("ratingSum");
+            Expression<Number> averageRating = cb.<Number>selectCase()
+                    .when(cb.greaterThan(ratingCount, 0), cb.quot(cb.prod(ratingSum, 1.0), ratingCount))
+                    .otherwise(0.0);
+            orders.add(cb.desc(averageRating));
+        } else if (sort != ProductSort.ID) {
+            orders.add(sort.isAscending()
+                    ? cb.asc(product.get(sort.getAttribute()))
+                    : cb.desc(product.get(sort.getAttribute())));
+        }
+        orders.add(sort.isAscending() ? cb.asc(product.get("id")) : cb.desc(product.get("id")));
+        return orders;
+    }
+}
@@ -0,0 +1,35 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.ProductSalesDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface ProductSalesDailyRepository extends JpaRepository<ProductSalesDaily, ProductSalesDaily.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_daily (product_id, sales_date, quantity_sold, revenue) " +
+            "VALUES (:productId, :salesDate, :quantity, :revenue) " +
+            "ON DUPLICATE KEY UPDATE quantity_sold = quantity_sold + :quantity, revenue = revenue + :revenue",
+            nativeQuery = true)
+    void addSales(
+            @Param("productId") Integer productId,
+            @Param("salesDate") LocalDate salesDate,
+            @Param("quantity") long quantity,
+            @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_daily (product_id, sales_date, quantity_sold, revenue) " +
+            "SELECT d.product_id, CAST(o.created_at AS DATE), SUM(d.quantity), SUM(d.subtotal) " +
+            "FROM order_details d JOIN orders o ON o.id = d.order_id " +
+            "WHERE o.status <> 'cancelled' " +
+            "GROUP BY d.product_id, CAST(o.created_at AS DATE)",
+            nativeQuery = true)
+    int rebuildFromOrders();
+}
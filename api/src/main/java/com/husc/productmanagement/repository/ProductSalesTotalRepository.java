@@ -0,0 +1,38 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.dto.TopProductDTO;
+import com.husc.productmanagement.entity.ProductSalesTotal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface ProductSalesTotalRepository extends JpaRepository<ProductSalesTotal, Integer> {
+
+    @Query("SELECT new com.husc.productmanagement.dto.TopProductDTO(p.id, p.name, t.quantitySold, t.revenue) " +
+            "FROM ProductSalesTotal t JOIN Product p ON p.id = t.productId " +
+            "WHERE t.quantitySold > 0 ORDER BY t.quantitySold DESC, t.productId")
+    List<TopProductDTO> findTopProducts(Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_totals (product_id, quantity_sold, revenue) " +
+            "VALUES (:productId, :quantity, :revenue) " +
+            "ON DUPLICATE KEY UPDATE quantity_sold = quantity_sold + :quantity, revenue = revenue + :revenue",
+            nativeQuery = true)
+    void addSales(
+            @Param("productId") Integer productId,
+            @Param("quantity") long quantity,
+            @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_totals (product_id, quantity_sold, revenue) " +
+            "SELECT product_id, SUM(quantity_sold), SUM(revenue) FROM product_sales_daily GROUP BY product_id",
+            nativeQuery = true)
+    int rebuildFromDaily();
+}
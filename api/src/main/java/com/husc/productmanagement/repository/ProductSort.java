@@ -0,0 +1,46 @@
+package com.husc.productmanagement.repository;
+
+/**
+ * Keyset sort orders for product listings. Every order ends with the id so the
+ * (value, id) pair is unique and can be used as a cursor.
+ */
+public enum ProductSort {
+    ID("id", true),
+    PRICE_ASC("price", true),
+    PRICE_DESC("price", false),
+    NEWEST("createdAt", false),
+    // Average rating is derived from ratingSum / ratingCount, so it cannot be used as a cursor
+    RATING(null, false);
+
+    private final String attribute;
+    private final boolean ascending;
+
+    ProductSort(String attribute, boolean ascending) {
+        this.attribute = attribute;
+        this.ascending = ascending;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean isKeysetSupported() {
+        return this != RATING;
+    }
+
+    public static ProductSort fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return ID;
+        }
+        for (ProductSort sort : ProductSort.values()) {
+            if (sort.name().equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new RuntimeException("Unsupported sort: " + value);
+    }
+}
@@ -0,0 +1,34 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.RevenueRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, RevenueRollup.Key> {
+
+    // Buckets starting in [from, to)
+    @Query("SELECT r FROM RevenueRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<RevenueRollup> findRange(
+            @Param("granularity") RevenueRollup.Granularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query(value = "INSERT INTO revenue_rollups (granularity, bucket_start, revenue) " +
+            "VALUES (:granularity, :bucketStart, :revenue) " +
+            "ON DUPLICATE KEY UPDATE revenue = revenue + :revenue",
+            nativeQuery = true)
+    void addRevenue(
+            @Param("granularity") String granularity,
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("revenue") BigDecimal revenue);
+}
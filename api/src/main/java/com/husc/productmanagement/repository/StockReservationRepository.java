@@ -0,0 +1,13 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, StockReservation.Key> {
+
+    List<StockReservation> findByNodeId(Integer nodeId);
+}
@@ -6,30 +6,54 @@ import com.husc.productmanagement.dto.UserDTO;
 import com.husc.productmanagement.entity.User;
 import com.husc.productmanagement.repository.UserRepository;
 import com.husc.productmanagement.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
-@RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
     private final JwtUtil jwtUtil;
+    // Runs the work that follows a hash, e.g. inserting the user, off the CPU-sized hashing pool
+    private final Executor taskExecutor;
+
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, LoginThrottle loginThrottle,
+            JwtUtil jwtUtil, @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
+        this.jwtUtil = jwtUtil;
+        this.taskExecutor = taskExecutor;
+    }
 
-    @Transactional
-    public LoginResponse login(LoginRequest loginRequest) {
+    // The password check runs on the hashing pool; the request thread is free until it completes
+    public CompletableFuture<LoginResponse> login(LoginRequest loginRequest, String clientIp) {
         String identifier = loginRequest.getUsernameOrEmail().trim().toLowerCase();
+        loginThrottle.checkAttempt(identifier, clientIp);
 
-        User user = userRepository.findByUsernameOrEmail(identifier, identifier)
-                .orElseThrow(() -> new RuntimeException("Invalid username/email or password"));
+        Optional<User> found = userRepository.findByUsernameOrEmail(identifier, identifier);
+        // Unknown users still pay for a hash so they cannot be told apart by response time
+        CompletableFuture<Boolean> check = found.isPresent()
+                ? passwordHasher.matches(loginRequest.getPassword(), found.get().getPassword())
+                : passwordHasher.matchesNothing(loginRequest.getPassword());
 
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid username/email or password");
-        }
+        return check.thenApply(matches -> {
+            if (!matches) {
+                loginThrottle.recordFailure(identifier);
+                throw new RuntimeException("Invalid username/email or password");
+            }
+            loginThrottle.recordSuccess(identifier);
+            return toLoginResponse(found.get());
+        });
+    }
 
+    private LoginResponse toLoginResponse(User user) {
         if (user.getStatus() == User.Status.INACTIVE) {
             throw new RuntimeException("Account is inactive");
         }
@@ -48,8 +72,7 @@ public class AuthService {
                 user.getRole().name().toLowerCase());
     }
 
-    @Transactional
-    public UserDTO register(UserDTO userDTO) {
+    public CompletableFuture<UserDTO> register(UserDTO userDTO) {
         String email = userDTO.getEmail().trim().toLowerCase();
         String username = userDTO.getUsername().trim().toLowerCase();
 
@@ -60,13 +83,18 @@ public class AuthService {
             throw new RuntimeException("Username already exists: " + username);
         }
 
+        return passwordHasher.encode(userDTO.getPassword())
+                .thenApplyAsync(encodedPassword -> createUser(userDTO, email, username, encodedPassword), taskExecutor);
+    }
+
+    private UserDTO createUser(UserDTO userDTO, String email, String username, String encodedPassword) {
         User user = new User();
         user.setName(userDTO.getName());
         user.setUsername(username);
         user.setEmail(email);
         user.setPhone(userDTO.getPhone());
         user.setAddress(userDTO.getAddress());
-        user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+        user.setPassword(encodedPassword);
         user.setRole(User.Role.USER); // Default role
         user.setStatus(User.Status.ACTIVE);
 
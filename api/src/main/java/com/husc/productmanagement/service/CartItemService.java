@@ -1,109 +1,131 @@
 package com.husc.productmanagement.service;
 
 import com.husc.productmanagement.dto.CartItemDTO;
-import com.husc.productmanagement.entity.CartItem;
-import com.husc.productmanagement.entity.Product;
-import com.husc.productmanagement.entity.User;
-import com.husc.productmanagement.repository.CartItemRepository;
-import com.husc.productmanagement.repository.ProductRepository;
 import com.husc.productmanagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartItemService {
 
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
 
-    @Transactional(readOnly = true)
     public List<CartItemDTO> getUserCart(Integer userId) {
-        return cartItemRepository.findByUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(userId, cartStore.apply(userId, CartStore.Cart::getLines));
     }
 
-    @Transactional
     public CartItemDTO addToCart(Integer userId, Integer productId, Integer quantity) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        CartStore.ProductView product = cartStore.findProduct(productId);
+        if (product == null) {
+            throw new RuntimeException("Product not found");
+        }
 
         if (quantity <= 0) {
             throw new RuntimeException("Quantity must be greater than 0");
         }
 
-        // Check availability
-        if (product.getQuantity() < quantity) {
-            throw new RuntimeException("Not enough stock");
-        }
-
-        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId)
-                .orElse(new CartItem());
-
-        if (cartItem.getId() == null) {
-            cartItem.setUser(user);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(quantity);
-        } else {
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        }
+        CartStore.Line line = cartStore.apply(userId, cart -> {
+            // A user with cart rows exists, the foreign key guarantees it
+            if (!cart.isUserChecked()) {
+                if (cart.isEmpty() && !userRepository.existsById(userId)) {
+                    throw new RuntimeException("User not found");
+                }
+                cart.markUserChecked();
+            }
 
-        CartItem savedCartItem = cartItemRepository.save(cartItem);
-        return convertToDTO(savedCartItem);
+            // Hold the whole cart quantity, not counting what other carts already hold
+            int cartQuantity = cart.quantityOf(productId) + quantity;
+            if (!stockReservationService.holdForCart(userId, productId, cartQuantity)) {
+                throw new RuntimeException("Not enough stock");
+            }
+            return cart.set(productId, cartQuantity);
+        });
+        return convertToDTO(userId, line, product);
     }
 
-    @Transactional
     public CartItemDTO updateQuantity(Integer userId, Integer productId, Integer quantity) {
         if (quantity <= 0) {
             removeFromCart(userId, productId);
             return null;
         }
 
-        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        CartStore.Line line = cartStore.apply(userId, cart -> {
+            if (!cart.contains(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
 
-        // Check availability for increased quantity
-        if (quantity > cartItem.getQuantity()) {
-            if (cartItem.getProduct().getQuantity() < quantity) {
+            // Resize the hold; only an increase can fail
+            if (!stockReservationService.holdForCart(userId, productId, quantity)) {
                 throw new RuntimeException("Not enough stock");
             }
-        }
-
-        cartItem.setQuantity(quantity);
-        CartItem savedCartItem = cartItemRepository.save(cartItem);
-        return convertToDTO(savedCartItem);
+            return cart.set(productId, quantity);
+        });
+        return convertToDTO(userId, line, cartStore.findProduct(productId));
     }
 
-    @Transactional
     public void removeFromCart(Integer userId, Integer productId) {
-        CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        cartItemRepository.delete(cartItem);
+        cartStore.apply(userId, cart -> {
+            if (!cart.contains(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            cart.set(productId, 0);
+            stockReservationService.release(StockReservationService.cartOwner(userId), productId);
+            return null;
+        });
     }
 
-    @Transactional
     public void clearCart(Integer userId) {
-        cartItemRepository.deleteByUserId(userId);
+        cartStore.apply(userId, cart -> {
+            cart.clear();
+            stockReservationService.releaseAll(StockReservationService.cartOwner(userId));
+            return null;
+        });
+    }
+
+    // Checkout start: re-holds every cart line, keeps the holds for the checkout TTL and writes the cart through
+    public List<CartItemDTO> startCheckout(Integer userId) {
+        List<CartStore.Line> lines = cartStore.apply(userId, cart -> {
+            for (CartStore.Line line : cart.getLines()) {
+                if (!stockReservationService.holdForCart(userId, line.getProductId(), line.getQuantity())) {
+                    CartStore.ProductView product = cartStore.findProduct(line.getProductId());
+                    throw new RuntimeException("Not enough stock for product: "
+                            + (product != null ? product.getName() : line.getProductId()));
+                }
+            }
+            stockReservationService.extendForCheckout(StockReservationService.cartOwner(userId));
+            return cart.getLines();
+        });
+        cartStore.flush(userId);
+        return toDTOs(userId, lines);
+    }
+
+    private List<CartItemDTO> toDTOs(Integer userId, List<CartStore.Line> lines) {
+        List<CartItemDTO> dtos = new ArrayList<>(lines.size());
+        for (CartStore.Line line : lines) {
+            CartStore.ProductView product = cartStore.findProduct(line.getProductId());
+            if (product != null) {
+                dtos.add(convertToDTO(userId, line, product));
+            }
+        }
+        return dtos;
     }
 
-    private CartItemDTO convertToDTO(CartItem cartItem) {
+    private CartItemDTO convertToDTO(Integer userId, CartStore.Line line, CartStore.ProductView product) {
         CartItemDTO dto = new CartItemDTO();
-        dto.setId(cartItem.getId());
-        dto.setUserId(cartItem.getUser().getId());
-        dto.setProductId(cartItem.getProduct().getId());
-        dto.setProductName(cartItem.getProduct().getName());
-        dto.setProductImage(cartItem.getProduct().getImage());
-        dto.setProductPrice(cartItem.getProduct().getPrice());
-        dto.setQuantity(cartItem.getQuantity());
-        dto.setProductStock(cartItem.getProduct().getQuantity());
+        dto.setId(line.getId());
+        dto.setUserId(userId);
+        dto.setProductId(line.getProductId());
+        dto.setProductName(product.getName());
+        dto.setProductImage(product.getImage());
+        dto.setProductPrice(product.getPrice());
+        dto.setQuantity(line.getQuantity());
+        dto.setProductStock(stockReservationService.getQuantity(line.getProductId()));
         return dto;
     }
 }
@@ -0,0 +1,501 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.repository.CartItemRepository;
+import com.husc.productmanagement.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind store of the users' carts. A cart is loaded from cart_items once and then
+ * read and changed in memory; changes are kept per product and written back as batched
+ * upserts and deletes on an interval, on checkout and on shutdown. Carts live in lock
+ * stripes keyed by user id, each an access-ordered map bounded to its share of
+ * cart.store.max-carts. An evicted cart with unwritten changes stays parked in its stripe
+ * until a flush has written it, so reloading that user never reads a stale row.
+ */
+@Slf4j
+@Service
+public class CartStore {
+
+    private static final String UPSERT_SQL = "INSERT INTO cart_items (user_id, product_id, quantity, created_at, updated_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), updated_at = VALUES(updated_at)";
+
+    private static final String DELETE_SQL = "DELETE FROM cart_items WHERE user_id = ? AND product_id = ?";
+
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Stripe[] stripes;
+
+    private final Map<Integer, ProductView> products = new ConcurrentHashMap<>();
+    // Bumped on every product change so a view loaded before the change is not cached after it
+    private final AtomicLong productVersion = new AtomicLong();
+    // Serializes writers so an older snapshot can never be written after a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CartStore(CartItemRepository cartItemRepository, ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            @Value("${cart.store.stripes:16}") int stripeCount,
+            @Value("${cart.store.max-carts:10000}") int maxCarts) {
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(Math.max(maxCarts / stripeCount, 1));
+        }
+    }
+
+    /**
+     * Runs the action on the cart of the user, loading it first if it is not in memory.
+     * Actions on the same user are serialized; the cart must not escape the action.
+     */
+    public <T> T apply(Integer userId, Function<Cart, T> action) {
+        Stripe stripe = stripe(userId);
+        stripe.lock();
+        try {
+            return action.apply(stripe.cart(userId, this::load));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Returns the display fields of a product, or null if it does not exist.
+     */
+    public ProductView findProduct(Integer productId) {
+        ProductView view = products.get(productId);
+        if (view != null) {
+            return view;
+        }
+        long version = productVersion.get();
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) {
+            return null;
+        }
+        view = new ProductView(product.getName(), product.getImage(), product.getPrice());
+        if (productVersion.get() == version) {
+            products.put(productId, view);
+        }
+        return view;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:2000}")
+    public void flushAll() {
+        flush(null);
+    }
+
+    // Checkout: the cart of the user is in cart_items when this returns
+    public void flush(Integer userId) {
+        flushLock.lock();
+        try {
+            List<Change> changes = new ArrayList<>();
+            for (Stripe stripe : userId == null ? List.of(stripes) : List.of(stripe(userId))) {
+                stripe.lock();
+                try {
+                    stripe.drain(userId, changes);
+                } finally {
+                    stripe.unlock();
+                }
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            try {
+                write(changes);
+            } catch (DataIntegrityViolationException e) {
+                // A user or product was deleted under its cart; write the carts one by one
+                writeEach(changes);
+            } catch (RuntimeException e) {
+                requeue(changes);
+                throw e;
+            }
+            written(changes);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productVersion.incrementAndGet();
+        products.remove(event.getProductId());
+        if (!event.isDeleted()) {
+            return;
+        }
+        // The foreign key only lets a product go once no cart_items row references it
+        for (Stripe stripe : stripes) {
+            stripe.lock();
+            try {
+                stripe.forEach(cart -> cart.forget(event.getProductId()));
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private Cart load(Integer userId) {
+        Cart cart = new Cart(userId);
+        for (Object[] row : cartItemRepository.findLinesByUserId(userId)) {
+            Integer productId = (Integer) row[1];
+            cart.lines.put(productId, new Line((Integer) row[0], productId, (Integer) row[2]));
+        }
+        return cart;
+    }
+
+    private void write(List<Change> changes) {
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.quantity > 0) {
+                upserts.add(new Object[] { change.userId, change.productId, change.quantity });
+            } else {
+                deletes.add(new Object[] { change.userId, change.productId });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            }
+        });
+    }
+
+    private void writeEach(List<Change> changes) {
+        Map<Integer, List<Change>> byUser = changes.stream()
+                .collect(Collectors.groupingBy(change -> change.userId, LinkedHashMap::new, Collectors.toList()));
+        List<Change> done = new ArrayList<>();
+        List<Change> remaining = new ArrayList<>(changes);
+        for (Map.Entry<Integer, List<Change>> entry : byUser.entrySet()) {
+            try {
+                write(entry.getValue());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Dropping cart of user {} that can no longer be written: {}", entry.getKey(), e.getMessage());
+                Stripe stripe = stripe(entry.getKey());
+                stripe.lock();
+                try {
+                    stripe.discard(entry.getKey());
+                } finally {
+                    stripe.unlock();
+                }
+            } catch (RuntimeException e) {
+                written(done);
+                requeue(remaining);
+                throw e;
+            }
+            done.addAll(entry.getValue());
+            remaining.removeAll(entry.getValue());
+        }
+    }
+
+    // A failed write goes back to the carts, unless the cart changed the same product since
+    private void requeue(List<Change> changes) {
+        for (Change change : changes) {
+            Stripe stripe = stripe(change.userId);
+            stripe.lock();
+            try {
+                Cart cart = stripe.find(change.userId);
+                if (cart != null) {
+                    cart.pending.putIfAbsent(change.productId, change.quantity);
+                    cart.flushing = false;
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private void written(List<Change> changes) {
+        Set<Integer> userIds = changes.stream().map(change -> change.userId).collect(Collectors.toSet());
+        Set<Integer> inserted = changes.stream()
+                .filter(change -> change.quantity > 0 && change.lineId == null)
+                .map(change -> change.userId)
+                .collect(Collectors.toSet());
+        List<Object[]> ids = inserted.isEmpty() ? List.of() : cartItemRepository.findIdsByUserIds(inserted);
+
+        for (Integer userId : userIds) {
+            Stripe stripe = stripe(userId);
+            stripe.lock();
+            try {
+                Cart cart = stripe.find(userId);
+                if (cart != null) {
+                    cart.flushing = false;
+                }
+                stripe.release(userId);
+            } finally {
+                stripe.unlock();
+            }
+        }
+        // New rows got their AUTO_INCREMENT id from the database
+        for (Object[] row : ids) {
+            Integer userId = (Integer) row[0];
+            Stripe stripe = stripe(userId);
+            stripe.lock();
+            try {
+                Cart cart = stripe.find(userId);
+                if (cart != null) {
+                    cart.assignId((Integer) row[1], (Integer) row[2]);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private Stripe stripe(Integer userId) {
+        return stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+    }
+
+    /**
+     * Cart of one user. Every change is recorded per product until it is written.
+     */
+    public static class Cart {
+        private final Integer userId;
+        private final Map<Integer, Line> lines = new LinkedHashMap<>();
+        // productId -> quantity to write, 0 deletes the row
+        private Map<Integer, Integer> pending = new HashMap<>();
+        private boolean flushing;
+        private boolean userChecked;
+
+        Cart(Integer userId) {
+            this.userId = userId;
+        }
+
+        public boolean isEmpty() {
+            return lines.isEmpty();
+        }
+
+        public boolean contains(Integer productId) {
+            return lines.containsKey(productId);
+        }
+
+        public int quantityOf(Integer productId) {
+            Line line = lines.get(productId);
+            return line != null ? line.quantity : 0;
+        }
+
+        public List<Line> getLines() {
+            return new ArrayList<>(lines.values());
+        }
+
+        /**
+         * Sets the quantity of a product, 0 removes the line.
+         */
+        public Line set(Integer productId, int quantity) {
+            Line current = lines.get(productId);
+            pending.put(productId, quantity);
+            if (quantity <= 0) {
+                lines.remove(productId);
+                return null;
+            }
+            Line line = new Line(current != null ? current.id : null, productId, quantity);
+            lines.put(productId, line);
+            return line;
+        }
+
+        public void clear() {
+            for (Integer productId : new ArrayList<>(lines.keySet())) {
+                set(productId, 0);
+            }
+        }
+
+        // Whether the user row is known to exist, so adds do not look it up every time
+        public boolean isUserChecked() {
+            return userChecked;
+        }
+
+        public void markUserChecked() {
+            userChecked = true;
+        }
+
+        private boolean isDirty() {
+            return flushing || !pending.isEmpty();
+        }
+
+        private void forget(Integer productId) {
+            lines.remove(productId);
+            pending.remove(productId);
+        }
+
+        private void assignId(Integer productId, Integer id) {
+            Line line = lines.get(productId);
+            if (line != null && line.id == null) {
+                lines.put(productId, new Line(id, productId, line.quantity));
+            }
+        }
+    }
+
+    public static class Line {
+        private final Integer id;
+        private final Integer productId;
+        private final int quantity;
+
+        Line(Integer id, Integer productId, int quantity) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Integer getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    public static class ProductView {
+        private final String name;
+        private final String image;
+        private final BigDecimal price;
+
+        ProductView(String name, String image, BigDecimal price) {
+            this.name = name;
+            this.image = image;
+            this.price = price;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getImage() {
+            return image;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+    }
+
+    private static class Change {
+        private final Integer userId;
+        private final Integer productId;
+        private final int quantity;
+        private final Integer lineId;
+
+        Change(Integer userId, Integer productId, int quantity, Integer lineId) {
+            this.userId = userId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.lineId = lineId;
+        }
+    }
+
+    // Guarded by its own lock, not a monitor: carts are loaded from the database while it is held
+    private static class Stripe extends ReentrantLock {
+        private final Map<Integer, Cart> parked = new HashMap<>();
+        private final LinkedHashMap<Integer, Cart> carts;
+
+        Stripe(int capacity) {
+            this.carts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Cart> eldest) {
+                    if (size() <= capacity) {
+                        return false;
+                    }
+                    if (eldest.getValue().isDirty()) {
+                        parked.put(eldest.getKey(), eldest.getValue());
+                    }
+                    return true;
+                }
+            };
+        }
+
+        Cart cart(Integer userId, Function<Integer, Cart> loader) {
+            Cart cart = carts.get(userId);
+            if (cart == null) {
+                cart = parked.remove(userId);
+                if (cart == null) {
+                    cart = loader.apply(userId);
+                }
+                carts.put(userId, cart);
+            }
+            return cart;
+        }
+
+        Cart find(Integer userId) {
+            Cart cart = carts.get(userId);
+            return cart != null ? cart : parked.get(userId);
+        }
+
+        void forEach(Consumer<Cart> action) {
+            carts.values().forEach(action);
+            parked.values().forEach(action);
+        }
+
+        void drain(Integer userId, List<Change> changes) {
+            if (userId == null) {
+                forEach(cart -> drain(cart, changes));
+            } else {
+                Cart cart = find(userId);
+                if (cart != null) {
+                    drain(cart, changes);
+                }
+            }
+        }
+
+        private static void drain(Cart cart, List<Change> changes) {
+            if (cart.pending.isEmpty()) {
+                return;
+            }
+            cart.pending.forEach((productId, quantity) -> {
+                Line line = cart.lines.get(productId);
+                changes.add(new Change(cart.userId, productId, quantity, line != null ? line.id : null));
+            });
+            cart.pending = new HashMap<>();
+            cart.flushing = true;
+        }
+
+        // Parked carts leave memory once everything they held is in the database
+        void release(Integer userId) {
+            Cart cart = parked.get(userId);
+            if (cart != null && !cart.isDirty()) {
+                parked.remove(userId);
+            }
+        }
+
+        void discard(Integer userId) {
+            carts.remove(userId);
+            parked.remove(userId);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.config.CacheConfig;
+import com.husc.productmanagement.event.CategoryChangedEvent;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.event.RatingChangedEvent;
+import com.husc.productmanagement.event.StockChangedEvent;
+import com.husc.productmanagement.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Evicts the cached catalog lists after the writing transaction commits, so a reload
+ * never sees the data from before the change. Each event only clears the caches whose
+ * content it can affect. Stock changes only evict when a product sells out or comes
+ * back in stock; other quantity changes show up in the lists once the cache TTL expires.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+
+    private final Set<Integer> outOfStock = new HashSet<>();
+    // Guards outOfStock; held across the quantity query so concurrent commits apply in order
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOutOfStock() {
+        lock.lock();
+        try {
+            outOfStock.clear();
+            outOfStock.addAll(productRepository.findOutOfStockIds());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Category names are shown on every product
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        clear(CacheConfig.ACTIVE_CATEGORIES);
+        clear(CacheConfig.ACTIVE_PRODUCTS);
+        clear(CacheConfig.FEATURED_PRODUCTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        clear(CacheConfig.ACTIVE_PRODUCTS);
+        clear(CacheConfig.FEATURED_PRODUCTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        clear(CacheConfig.ACTIVE_PRODUCTS);
+        clear(CacheConfig.FEATURED_PRODUCTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            return;
+        }
+        boolean crossed = false;
+        lock.lock();
+        try {
+            for (Object[] row : productRepository.findQuantities(event.getProductIds())) {
+                Integer productId = (Integer) row[0];
+                boolean soldOut = (Integer) row[1] <= 0;
+                crossed |= soldOut ? outOfStock.add(productId) : outOfStock.remove(productId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (crossed) {
+            clear(CacheConfig.ACTIVE_PRODUCTS);
+            clear(CacheConfig.FEATURED_PRODUCTS);
+        }
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.husc.productmanagement.service;
 
+import com.husc.productmanagement.config.CacheConfig;
 import com.husc.productmanagement.dto.CategoryDTO;
 import com.husc.productmanagement.entity.Category;
+import com.husc.productmanagement.event.CategoryChangedEvent;
 import com.husc.productmanagement.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +19,7 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<CategoryDTO> getAllCategories() {
@@ -23,6 +28,7 @@ public class CategoryService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.ACTIVE_CATEGORIES, sync = true)
     @Transactional(readOnly = true)
     public List<CategoryDTO> getActiveCategories() {
         return categoryRepository.findByStatus(Category.Status.ACTIVE).stream()
@@ -48,8 +54,10 @@ public class CategoryService {
         category.setStatus(
                 categoryDTO.getStatus() != null ? Category.Status.valueOf(categoryDTO.getStatus().toUpperCase())
                         : Category.Status.ACTIVE);
+        category.setReorderThreshold(categoryDTO.getReorderThreshold());
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId(), savedCategory.getName(), false));
         return convertToDTO(savedCategory);
     }
 
@@ -69,7 +77,13 @@ public class CategoryService {
             category.setStatus(Category.Status.valueOf(categoryDTO.getStatus().toUpperCase()));
         }
 
+        if (categoryDTO.getReorderThreshold() != null) {
+            category.setReorderThreshold(categoryDTO.getReorderThreshold());
+        }
+
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(
+                new CategoryChangedEvent(updatedCategory.getId(), updatedCategory.getName(), false));
         return convertToDTO(updatedCategory);
     }
 
@@ -79,6 +93,7 @@ public class CategoryService {
             throw new RuntimeException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, null, true));
     }
 
     private CategoryDTO convertToDTO(Category category) {
@@ -86,6 +101,7 @@ public class CategoryService {
         dto.setId(category.getId());
         dto.setName(category.getName());
         dto.setStatus(category.getStatus().name().toLowerCase());
+        dto.setReorderThreshold(category.getReorderThreshold());
         return dto;
     }
 }
@@ -0,0 +1,142 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.TopProductDTO;
+import com.husc.productmanagement.entity.Order;
+import com.husc.productmanagement.entity.OrderDetail;
+import com.husc.productmanagement.entity.OrderStatusStat;
+import com.husc.productmanagement.repository.OrderRepository;
+import com.husc.productmanagement.repository.OrderStatusStatRepository;
+import com.husc.productmanagement.repository.ProductSalesDailyRepository;
+import com.husc.productmanagement.repository.ProductSalesTotalRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the dashboard counters (per-product daily and all-time sales, per-status order
+ * counts) up to date as orders are created and change status. Updates run inside the
+ * caller's transaction; order changes reach them through the outbox (OrderEventHandler),
+ * whose transaction also marks the event done, so every change is counted exactly once.
+ * Cancelled orders do not count as sales. Revenue buckets are delegated to
+ * RevenueRollupService.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardAggregateService {
+
+    // Orders in these statuses count as revenue
+    static final Set<Order.Status> REVENUE_STATUSES = EnumSet.of(Order.Status.PAID, Order.Status.SHIPPED);
+
+    private final ProductSalesDailyRepository productSalesDailyRepository;
+    private final ProductSalesTotalRepository productSalesTotalRepository;
+    private final OrderStatusStatRepository orderStatusStatRepository;
+    private final OrderRepository orderRepository;
+    private final RevenueRollupService revenueRollupService;
+
+    @Transactional
+    public void recordOrderCreated(Order order) {
+        recordOrderCreated(order, order.getStatus());
+    }
+
+    // status is the one the order was created with, it may have changed since
+    @Transactional
+    public void recordOrderCreated(Order order, Order.Status status) {
+        orderStatusStatRepository.addOrders(status.getValue(), 1, order.getTotalAmount());
+        if (status != Order.Status.CANCELLED) {
+            addSales(order, 1);
+        }
+        if (REVENUE_STATUSES.contains(status)) {
+            revenueRollupService.record(order, 1);
+        }
+    }
+
+    @Transactional
+    public void recordStatusChange(Order order, Order.Status from, Order.Status to) {
+        if (from == to) {
+            return;
+        }
+        orderStatusStatRepository.addOrders(from.getValue(), -1, order.getTotalAmount().negate());
+        orderStatusStatRepository.addOrders(to.getValue(), 1, order.getTotalAmount());
+
+        if (to == Order.Status.CANCELLED) {
+            addSales(order, -1);
+        } else if (from == Order.Status.CANCELLED) {
+            addSales(order, 1);
+        }
+
+        boolean wasRevenue = REVENUE_STATUSES.contains(from);
+        boolean isRevenue = REVENUE_STATUSES.contains(to);
+        if (wasRevenue != isRevenue) {
+            revenueRollupService.record(order, isRevenue ? 1 : -1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Order.Status, OrderStatusStat> getOrderStatusStats() {
+        Map<Order.Status, OrderStatusStat> stats = new TreeMap<>();
+        for (OrderStatusStat stat : orderStatusStatRepository.findAll()) {
+            stats.put(Order.Status.fromValue(stat.getStatus()), stat);
+        }
+        return stats;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TopProductDTO> getTopProducts(int limit) {
+        return productSalesTotalRepository.findTopProducts(PageRequest.of(0, limit));
+    }
+
+    // Recomputes every counter from the orders table, returns the number of product-day rows
+    @Transactional
+    public int rebuild() {
+        productSalesTotalRepository.deleteAllInBatch();
+        productSalesDailyRepository.deleteAllInBatch();
+        orderStatusStatRepository.deleteAllInBatch();
+
+        int days = productSalesDailyRepository.rebuildFromOrders();
+        productSalesTotalRepository.rebuildFromDaily();
+        orderStatusStatRepository.rebuildFromOrders();
+        revenueRollupService.rebuild(REVENUE_STATUSES);
+        return days;
+    }
+
+    // First start after the aggregate tables were introduced: backfill them from existing orders
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (orderStatusStatRepository.count() == 0 && orderRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private void addSales(Order order, int sign) {
+        LocalDate salesDate = order.getCreatedAt().toLocalDate();
+
+        // Merge lines per product and touch rows in id order, like the stock updates
+        Map<Integer, Long> quantities = new TreeMap<>();
+        Map<Integer, BigDecimal> revenues = new TreeMap<>();
+        for (OrderDetail detail : order.getOrderDetails()) {
+            Integer productId = detail.getProduct().getId();
+            quantities.merge(productId, detail.getQuantity().longValue(), Long::sum);
+            revenues.merge(productId, detail.getSubtotal(), BigDecimal::add);
+        }
+
+        for (Map.Entry<Integer, Long> entry : quantities.entrySet()) {
+            Integer productId = entry.getKey();
+            long quantity = sign * entry.getValue();
+            BigDecimal revenue = sign < 0 ? revenues.get(productId).negate() : revenues.get(productId);
+            productSalesDailyRepository.addSales(productId, salesDate, quantity, revenue);
+            productSalesTotalRepository.addSales(productId, quantity, revenue);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.event.RatingChangedEvent;
+import com.husc.productmanagement.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ranking of the active products whose average rating reaches the featured threshold,
+ * kept in memory from the rating summary columns. Products are ordered by a Bayesian
+ * average (the plain average when the prior weight is 0) and every rating or product
+ * change re-scores only that product, so reading the top K is a snapshot read.
+ * The listeners run before CatalogCacheEvictor so a reloaded cache sees the new order.
+ */
+@Component
+public class FeaturedProductRanking {
+
+    private static final Comparator<Entry> BY_SCORE = Comparator.comparingDouble((Entry e) -> e.score).reversed()
+            .thenComparing(Comparator.comparingInt((Entry e) -> e.ratingCount).reversed())
+            .thenComparingInt(e -> e.productId);
+
+    private final ProductRepository productRepository;
+    private final double minAverage;
+    private final double priorWeight;
+    private final double priorMean;
+    private final int size;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_SCORE);
+    // Guards entries and ranking; held across the product reads, so a lock rather than a monitor
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile List<Integer> topIds = List.of();
+    private volatile boolean ready;
+
+    public FeaturedProductRanking(ProductRepository productRepository,
+            @Value("${product.featured.min-rating:4.0}") double minAverage,
+            @Value("${product.featured.prior-weight:0}") double priorWeight,
+            @Value("${product.featured.prior-mean:3.0}") double priorMean,
+            @Value("${product.featured.size:10}") int size) {
+        this.productRepository = productRepository;
+        this.minAverage = minAverage;
+        this.priorWeight = priorWeight;
+        this.priorMean = priorMean;
+        this.size = size;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            entries.clear();
+            ranking.clear();
+            for (Object[] row : productRepository.findRatingSummariesByStatus(Product.Status.ACTIVE)) {
+                put((Integer) row[0], (Long) row[1], (Integer) row[2]);
+            }
+            publish();
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        refresh(event.getProductId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            update(event.getProductId(), null);
+        } else {
+            refresh(event.getProductId());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the ids of the featured products, best first.
+     */
+    public List<Integer> getTopIds() {
+        return topIds;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getMinAverage() {
+        return minAverage;
+    }
+
+    // Re-reads the committed summary columns rather than applying deltas, so concurrent writes cannot drift.
+    // A projection, not findById: the rating transaction's persistence context still holds the Product
+    // as it was before the bulk applyRatingDelta UPDATE.
+    private void refresh(Integer productId) {
+        lock.lock();
+        try {
+            List<Object[]> summary = productRepository.findRatingSummary(productId, Product.Status.ACTIVE);
+            update(productId, summary.isEmpty() ? null : summary.get(0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // summary is {ratingSum, ratingCount}, or null when the product is no longer featured
+    private void update(Integer productId, Object[] summary) {
+        lock.lock();
+        try {
+            Entry previous = entries.remove(productId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            if (summary != null) {
+                put(productId, (Long) summary[0], (Integer) summary[1]);
+            }
+            publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(Integer productId, long ratingSum, int ratingCount) {
+        if (ratingCount <= 0 || (double) ratingSum / ratingCount < minAverage) {
+            return;
+        }
+        Entry entry = new Entry(productId, ratingCount,
+                (priorWeight * priorMean + ratingSum) / (priorWeight + ratingCount));
+        entries.put(productId, entry);
+        ranking.add(entry);
+    }
+
+    private void publish() {
+        List<Integer> ids = new ArrayList<>(size);
+        Iterator<Entry> iterator = ranking.iterator();
+        while (iterator.hasNext() && ids.size() < size) {
+            ids.add(iterator.next().productId);
+        }
+        topIds = List.copyOf(ids);
+    }
+
+    private static class Entry {
+        private final int productId;
+        private final int ratingCount;
+        private final double score;
+
+        Entry(int productId, int ratingCount, double score) {
+            this.productId = productId;
+            this.ratingCount = ratingCount;
+            this.score = score;
+        }
+    }
+}
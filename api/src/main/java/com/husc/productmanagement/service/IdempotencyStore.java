@@ -0,0 +1,148 @@
+package com.husc.productmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.husc.productmanagement.entity.IdempotencyRecord;
+import com.husc.productmanagement.repository.IdempotencyRecordRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Responses of requests sent with an Idempotency-Key, kept for idempotency.ttl in a bounded
+ * in-memory cache and in idempotency_keys, so a retry is answered from memory (or one
+ * primary-key read after a restart) instead of running again. Only one request per key
+ * runs at a time on an instance: duplicates arriving meanwhile wait for its response.
+ * Keys are not locked across instances; two instances can each run a first attempt.
+ */
+@Slf4j
+@Service
+public class IdempotencyStore {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Cache<String, StoredResponse> responses;
+    // Key -> response of the request running for it, null if it did not produce one to keep
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${idempotency.ttl:24h}") Duration ttl,
+            @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout,
+            @Value("${idempotency.cache.max-size:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the response stored for the key, waiting for a request still running for it.
+     * Returns null when there is none: the caller now owns the key, must run the request and
+     * then call complete. Throws TimeoutException if the running request takes too long.
+     */
+    public StoredResponse begin(String key) throws TimeoutException, InterruptedException {
+        while (true) {
+            StoredResponse cached = responses.getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+            CompletableFuture<StoredResponse> own = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, own);
+            if (running == null) {
+                // Not in memory; another instance or an earlier run may have stored it
+                StoredResponse persisted;
+                try {
+                    persisted = load(key);
+                } catch (RuntimeException e) {
+                    complete(key, null);
+                    throw e;
+                }
+                if (persisted == null) {
+                    return null;
+                }
+                responses.put(key, persisted);
+                inFlight.remove(key, own);
+                own.complete(persisted);
+                return persisted;
+            }
+            try {
+                StoredResponse result = running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    return result;
+                }
+                // The running request failed; loop to run it ourselves
+            } catch (ExecutionException e) {
+                // Same as a failed run
+            }
+        }
+    }
+
+    // Ends the caller's run of the key; a null response (the request failed) is not kept
+    public void complete(String key, StoredResponse response) {
+        if (response != null) {
+            responses.put(key, response);
+            save(key, response);
+        }
+        CompletableFuture<StoredResponse> own = inFlight.remove(key);
+        if (own != null) {
+            own.complete(response);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteExpired(now));
+    }
+
+    private StoredResponse load(String key) {
+        return idempotencyRecordRepository.findByKeyHashAndExpiresAtAfter(key, LocalDateTime.now())
+                .map(record -> new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                        record.getContentType(), record.getBody()))
+                .orElse(null);
+    }
+
+    private void save(String key, StoredResponse response) {
+        try {
+            idempotencyRecordRepository.save(new IdempotencyRecord(key, response.getRequestHash(),
+                    response.getStatus(), response.getContentType(), response.getBody(),
+                    LocalDateTime.now().plus(ttl)));
+        } catch (RuntimeException e) {
+            // Still replayed from memory on this instance
+            log.warn("Cannot persist idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StoredResponse {
+
+        private final String requestHash;
+
+        private final int status;
+
+        private final String contentType;
+
+        private final byte[] body;
+    }
+}
@@ -2,14 +2,22 @@ package com.husc.productmanagement.service;
 
 import com.husc.productmanagement.dto.InventoryLogDTO;
 import com.husc.productmanagement.entity.InventoryLog;
+import com.husc.productmanagement.entity.Order;
+import com.husc.productmanagement.entity.OrderDetail;
 import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.StockChangedEvent;
 import com.husc.productmanagement.repository.InventoryLogRepository;
 import com.husc.productmanagement.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +26,7 @@ public class InventoryLogService {
 
     private final InventoryLogRepository inventoryLogRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public InventoryLogDTO createLog(Integer productId, Integer changeQuantity, String logTypeStr, String notes) {
@@ -26,24 +35,20 @@ public class InventoryLogService {
 
         InventoryLog.LogType logType = InventoryLog.LogType.fromValue(logTypeStr);
 
-        // Update product quantity based on log type
+        // Update product quantity based on log type, atomically in the database
         if (logType == InventoryLog.LogType.IMPORT) {
-            product.setQuantity(product.getQuantity() + changeQuantity);
+            productRepository.incrementStock(productId, changeQuantity);
         } else if (logType == InventoryLog.LogType.EXPORT) {
-            if (product.getQuantity() < changeQuantity) {
+            if (productRepository.decrementStock(productId, changeQuantity) == 0) {
                 throw new RuntimeException("Not enough stock for export");
             }
-            product.setQuantity(product.getQuantity() - changeQuantity);
         } else if (logType == InventoryLog.LogType.ADJUSTMENT) {
             // Adjustment can be positive or negative
-            product.setQuantity(product.getQuantity() + changeQuantity);
-            if (product.getQuantity() < 0) {
+            if (productRepository.adjustStock(productId, changeQuantity) == 0) {
                 throw new RuntimeException("Resulting quantity cannot be negative");
             }
         }
 
-        productRepository.save(product);
-
         InventoryLog log = new InventoryLog();
         log.setProduct(product);
         log.setChangeQuantity(changeQuantity);
@@ -51,9 +56,32 @@ public class InventoryLogService {
         log.setNotes(notes);
 
         InventoryLog savedLog = inventoryLogRepository.save(log);
+        eventPublisher.publishEvent(new StockChangedEvent(Set.of(productId)));
         return convertToDTO(savedLog);
     }
 
+    // Logs the stock an order took (EXPORT) or gave back (IMPORT); the quantities were already changed by the order
+    @Transactional
+    public void recordOrderMovement(Order order, InventoryLog.LogType logType, String notes) {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        Map<Integer, Product> products = new TreeMap<>();
+        for (OrderDetail detail : order.getOrderDetails()) {
+            quantities.merge(detail.getProduct().getId(), detail.getQuantity(), Integer::sum);
+            products.putIfAbsent(detail.getProduct().getId(), detail.getProduct());
+        }
+
+        List<InventoryLog> logs = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            InventoryLog log = new InventoryLog();
+            log.setProduct(products.get(entry.getKey()));
+            log.setChangeQuantity(entry.getValue());
+            log.setLogType(logType);
+            log.setNotes(notes);
+            logs.add(log);
+        }
+        inventoryLogRepository.saveAll(logs);
+    }
+
     @Transactional(readOnly = true)
     public List<InventoryLogDTO> getProductLogs(Integer productId) {
         return inventoryLogRepository.findByProductIdOrderByCreatedAtDesc(productId).stream()
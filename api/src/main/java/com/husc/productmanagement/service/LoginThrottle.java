@@ -0,0 +1,114 @@
+package com.husc.productmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.husc.productmanagement.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory login throttling with sliding-window counters: every attempt counts against
+ * the client IP, failed attempts also count against the username/email. A counter is the
+ * current fixed window plus the previous one weighted by how much of it still overlaps the
+ * sliding window, so each key costs a few fields. Counters live in bounded caches and
+ * expire once idle for two windows. Counts are per instance.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final String MESSAGE = "Too many login attempts, please try again later";
+
+    private final int maxAttemptsPerIp;
+    private final long ipWindowMillis;
+    private final int maxFailuresPerIdentifier;
+    private final long identifierWindowMillis;
+    private final Cache<String, SlidingWindow> ipAttempts;
+    private final Cache<String, SlidingWindow> identifierFailures;
+
+    public LoginThrottle(@Value("${auth.throttle.ip.max-attempts:20}") int maxAttemptsPerIp,
+            @Value("${auth.throttle.ip.window:1m}") Duration ipWindow,
+            @Value("${auth.throttle.identifier.max-failures:5}") int maxFailuresPerIdentifier,
+            @Value("${auth.throttle.identifier.window:15m}") Duration identifierWindow,
+            @Value("${auth.throttle.max-tracked:100000}") long maxTracked) {
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        this.ipWindowMillis = ipWindow.toMillis();
+        this.maxFailuresPerIdentifier = maxFailuresPerIdentifier;
+        this.identifierWindowMillis = identifierWindow.toMillis();
+        this.ipAttempts = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(ipWindow.multipliedBy(2))
+                .build();
+        this.identifierFailures = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(identifierWindow.multipliedBy(2))
+                .build();
+    }
+
+    /**
+     * Counts an attempt for the IP and throws TooManyRequestsException if the IP or the
+     * identifier is over its limit. Runs before any password work.
+     */
+    public void checkAttempt(String identifier, String ip) {
+        long now = System.currentTimeMillis();
+        SlidingWindow failures = identifierFailures.getIfPresent(identifier);
+        if (failures != null && failures.count(now) >= maxFailuresPerIdentifier) {
+            throw new TooManyRequestsException(MESSAGE, failures.secondsToNextWindow(now));
+        }
+        if (ip != null) {
+            SlidingWindow attempts = ipAttempts.get(ip, key -> new SlidingWindow(ipWindowMillis));
+            if (!attempts.tryAdd(now, maxAttemptsPerIp)) {
+                throw new TooManyRequestsException(MESSAGE, attempts.secondsToNextWindow(now));
+            }
+        }
+    }
+
+    public void recordFailure(String identifier) {
+        identifierFailures.get(identifier, key -> new SlidingWindow(identifierWindowMillis))
+                .tryAdd(System.currentTimeMillis(), Integer.MAX_VALUE);
+    }
+
+    public void recordSuccess(String identifier) {
+        identifierFailures.invalidate(identifier);
+    }
+
+    private static class SlidingWindow {
+        private final long windowMillis;
+        private long windowIndex;
+        private int previous;
+        private int current;
+
+        SlidingWindow(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        synchronized double count(long now) {
+            roll(now);
+            double overlap = 1.0 - (double) (now % windowMillis) / windowMillis;
+            return previous * overlap + current;
+        }
+
+        synchronized boolean tryAdd(long now, int limit) {
+            if (count(now) >= limit) {
+                return false;
+            }
+            current++;
+            return true;
+        }
+
+        long secondsToNextWindow(long now) {
+            return Math.max((windowMillis - now % windowMillis + 999) / 1000, 1);
+        }
+
+        private void roll(long now) {
+            long index = now / windowMillis;
+            if (index == windowIndex) {
+                return;
+            }
+            previous = index == windowIndex + 1 ? current : 0;
+            current = 0;
+            windowIndex = index;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.CategoryChangedEvent;
+import com.husc.productmanagement.event.LowStockEvent;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.event.StockChangedEvent;
+import com.husc.productmanagement.repository.CategoryRepository;
+import com.husc.productmanagement.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which active products are at or below their reorder threshold and publishes a
+ * LowStockEvent whenever a committed stock, product or category change moves a product
+ * across it. Stock changes only re-check the products they touched.
+ */
+@Component
+public class LowStockAlertPublisher {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultThreshold;
+
+    private final Set<Integer> lowStock = new HashSet<>();
+    // Guards lowStock; held across the stock queries, so a lock rather than a monitor
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public LowStockAlertPublisher(ProductRepository productRepository, CategoryRepository categoryRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${product.low-stock.default-threshold:10}") int defaultThreshold) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            lowStock.clear();
+            lowStock.addAll(findLowStockIds());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        check(event.getProductIds());
+    }
+
+    // Quantity, threshold or status may have changed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        check(Set.of(event.getProductId()));
+    }
+
+    // A category threshold applies to many products, so diff the whole low-stock set
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        lock.lock();
+        try {
+            Set<Integer> candidates = new HashSet<>(findLowStockIds());
+            candidates.addAll(lowStock);
+            check(candidates);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getDefaultThreshold() {
+        return defaultThreshold;
+    }
+
+    // Upper bound of every effective threshold, used to range-scan the (status, quantity) index
+    public int getMaxThreshold() {
+        int max = defaultThreshold;
+        Integer productMax = productRepository.findMaxReorderThreshold();
+        Integer categoryMax = categoryRepository.findMaxReorderThreshold();
+        if (productMax != null) {
+            max = Math.max(max, productMax);
+        }
+        if (categoryMax != null) {
+            max = Math.max(max, categoryMax);
+        }
+        return max;
+    }
+
+    private List<Integer> findLowStockIds() {
+        return productRepository.findLowStockIds(Product.Status.ACTIVE, defaultThreshold, getMaxThreshold());
+    }
+
+    private void check(Collection<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            Map<Integer, Object[]> levels = new HashMap<>();
+            for (Object[] row : productRepository.findStockLevels(productIds, Product.Status.ACTIVE,
+                    defaultThreshold)) {
+                levels.put((Integer) row[0], row);
+            }
+
+            for (Integer productId : productIds) {
+                Object[] level = levels.get(productId);
+                boolean low = level != null && (Integer) level[2] <= (Integer) level[3];
+                if (low && lowStock.add(productId)) {
+                    eventPublisher.publishEvent(new LowStockEvent(productId, (String) level[1],
+                            (Integer) level[2], (Integer) level[3], true));
+                } else if (!low && lowStock.remove(productId) && level != null) {
+                    eventPublisher.publishEvent(new LowStockEvent(productId, (String) level[1],
+                            (Integer) level[2], (Integer) level[3], false));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
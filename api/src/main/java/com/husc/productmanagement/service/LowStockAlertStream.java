@@ -0,0 +1,84 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.event.LowStockEvent;
+import com.husc.productmanagement.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans LowStockEvents out to Server-Sent Events subscribers. Sends happen on a single
+ * background thread, so a slow client never blocks the request that changed the stock
+ * and every subscriber receives the events in order. Subscriptions end after
+ * product.low-stock.stream-timeout (EventSource clients reconnect on their own) and at most
+ * product.low-stock.max-subscribers are open at once.
+ */
+@Component
+public class LowStockAlertStream {
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LowStockAlertStream(
+            @Value("${product.low-stock.stream-timeout:30m}") Duration timeout,
+            @Value("${product.low-stock.max-subscribers:100}") int maxSubscribers) {
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // synchronized so concurrent subscribes cannot both take the last slot
+        synchronized (emitters) {
+            if (emitters.size() >= maxSubscribers) {
+                throw new TooManyRequestsException("Too many low-stock subscribers, please try again later", 30);
+            }
+            emitters.add(emitter);
+        }
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        // Ends the response normally; the client reconnects
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    @EventListener
+    public void onLowStock(LowStockEvent event) {
+        String name = event.isLow() ? "low-stock" : "restocked";
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    // A builder can only be built once, so each subscriber gets its own
+                    emitter.send(SseEmitter.event().name(name).data(event));
+                } catch (IOException | IllegalStateException e) {
+                    emitters.remove(emitter);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,66 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.PaymentRequest;
+import com.husc.productmanagement.entity.InventoryLog;
+import com.husc.productmanagement.entity.Order;
+import com.husc.productmanagement.entity.OutboxEvent;
+import com.husc.productmanagement.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Side effects of order changes, run by OutboxDispatcher once the change has committed:
+ * the pending payment record, payment status sync, dashboard counters and inventory logs.
+ * Runs inside the dispatcher's transaction that also claims the outbox event, so each
+ * event is applied exactly once even when it is retried or seen by several instances.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final PaymentService paymentService;
+    private final DashboardAggregateService dashboardAggregateService;
+    private final InventoryLogService inventoryLogService;
+    private final OutboxService outboxService;
+
+    public void handle(OutboxEvent event) {
+        Map<String, String> payload = outboxService.readPayload(event);
+        Order order = orderRepository.findById(event.getAggregateId())
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + event.getAggregateId()));
+
+        switch (event.getType()) {
+            case ORDER_CREATED -> onOrderCreated(order, Order.Status.fromValue(payload.get("status")));
+            case ORDER_STATUS_CHANGED -> onStatusChanged(order,
+                    Order.Status.fromValue(payload.get("from")), Order.Status.fromValue(payload.get("to")));
+        }
+    }
+
+    // The order may have moved on since; count it in the status it was created with
+    private void onOrderCreated(Order order, Order.Status status) {
+        dashboardAggregateService.recordOrderCreated(order, status);
+
+        PaymentRequest paymentRequest = new PaymentRequest();
+        paymentRequest.setOrderId(order.getId());
+        paymentRequest.setAmount(order.getTotalAmount());
+        paymentRequest.setPaymentMethod(order.getPaymentMethod());
+        paymentRequest.setStatus("pending");
+        paymentService.createPayment(order.getId(), paymentRequest);
+
+        inventoryLogService.recordOrderMovement(order, InventoryLog.LogType.EXPORT,
+                "Order " + order.getOrderCode());
+    }
+
+    private void onStatusChanged(Order order, Order.Status from, Order.Status to) {
+        dashboardAggregateService.recordStatusChange(order, from, to);
+
+        if (to == Order.Status.PAID || to == Order.Status.DELIVERED) {
+            paymentService.markPendingPaymentsPaid(order.getId());
+        } else if (to == Order.Status.CANCELLED) {
+            inventoryLogService.recordOrderMovement(order, InventoryLog.LogType.IMPORT,
+                    "Order " + order.getOrderCode() + " cancelled");
+        }
+    }
+}
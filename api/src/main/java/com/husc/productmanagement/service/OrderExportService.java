@@ -0,0 +1,226 @@
+package com.husc.productmanagement.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.husc.productmanagement.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streams orders as CSV or NDJSON. Rows are read as scalar projections through a
+ * forward-only cursor and written straight to the response, so no entity is kept in the
+ * persistence context and heap usage does not grow with the number of orders exported.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String[] COLUMNS = { "id", "orderCode", "customerName", "email", "phone", "address",
+            "userId", "totalAmount", "paymentMethod", "status", "createdAt", "updatedAt" };
+
+    private static final String EXPORT_QUERY = "SELECT o.id, o.orderCode, o.customerName, o.email, o.phone, " +
+            "o.address, o.user.id, o.totalAmount, o.paymentMethod, o.status, o.createdAt, o.updatedAt " +
+            "FROM Order o " +
+            "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:from IS NULL OR o.createdAt >= :from) " +
+            "AND (:to IS NULL OR o.createdAt < :to) " +
+            "ORDER BY o.createdAt, o.id";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromValue(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Unsupported export format: " + value);
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Duration timeout;
+
+    public OrderExportService(PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${order.export.fetch-size:1000}") int fetchSize,
+            @Value("${order.export.timeout:30m}") Duration timeout) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.timeout = timeout;
+    }
+
+    // Exports may outlast spring.mvc.async.request-timeout, so they run with their own
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    // Parameters are validated here so bad input fails before the response is committed
+    public StreamingResponseBody export(Format format, String from, String to, String status) {
+        LocalDateTime start = parseBound("from", from, false);
+        LocalDateTime end = parseBound("to", to, true);
+        if (start != null && end != null && !start.isBefore(end)) {
+            throw new RuntimeException("'from' must be before 'to'");
+        }
+        Order.Status orderStatus = status != null && !status.isBlank() ? Order.Status.fromValue(status) : null;
+
+        // The body runs on an async thread after the controller returns, so it opens its own transaction
+        return out -> transactionTemplate.executeWithoutResult(tx -> {
+            try {
+                write(format, start, end, orderStatus, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void write(Format format, LocalDateTime from, LocalDateTime to, Order.Status status, OutputStream out)
+            throws IOException {
+        Query<Object[]> query = entityManager.unwrap(Session.class)
+                .createQuery(EXPORT_QUERY, Object[].class)
+                .setParameter("status", status)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize);
+
+        try (ScrollableResults<Object[]> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            if (format == Format.NDJSON) {
+                writeNdjson(rows, out);
+            } else {
+                writeCsv(rows, out);
+            }
+        }
+    }
+
+    private void writeCsv(ScrollableResults<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        while (rows.next()) {
+            Object[] row = rows.get();
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvValue(row[i]));
+            }
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(ScrollableResults<Object[]> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+        while (rows.next()) {
+            Object[] row = rows.get();
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                generator.writeFieldName(COLUMNS[i]);
+                writeJsonValue(generator, row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else {
+            generator.writeString(text(value));
+        }
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = text(value);
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private String text(Object value) {
+        if (value instanceof Order.Status) {
+            return ((Order.Status) value).getValue();
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    // Accepts yyyy-MM-dd or yyyy-MM-ddTHH:mm[:ss]; a date-only 'to' includes that whole day
+    private LocalDateTime parseBound(String name, String value, boolean upper) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.contains("T")) {
+                return LocalDateTime.parse(value);
+            }
+            LocalDate date = LocalDate.parse(value);
+            return (upper ? date.plusDays(1) : date).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid date for '" + name + "': " + value);
+        }
+    }
+}
@@ -2,40 +2,84 @@ package com.husc.productmanagement.service;
 
 import com.husc.productmanagement.dto.OrderDTO;
 import com.husc.productmanagement.dto.OrderItemDTO;
+import com.husc.productmanagement.dto.OrderStatusResult;
+import com.husc.productmanagement.dto.PageResponse;
 import com.husc.productmanagement.dto.PaymentDTO;
-import com.husc.productmanagement.dto.PaymentRequest;
 import com.husc.productmanagement.entity.Order;
 import com.husc.productmanagement.entity.OrderDetail;
+import com.husc.productmanagement.entity.OutboxEvent;
+import com.husc.productmanagement.entity.Payment;
 import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.StockChangedEvent;
 import com.husc.productmanagement.repository.OrderDetailRepository;
 import com.husc.productmanagement.repository.OrderRepository;
 import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.util.OrderCodeGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    // Status -> statuses it may move to; orders only move forward, delivered and cancelled are final
+    private static final Map<Order.Status, Set<Order.Status>> TRANSITIONS = new EnumMap<>(Map.of(
+            Order.Status.PENDING, EnumSet.of(Order.Status.CONFIRMED, Order.Status.PAID, Order.Status.CANCELLED),
+            Order.Status.CONFIRMED, EnumSet.of(Order.Status.PAID, Order.Status.SHIPPED, Order.Status.CANCELLED),
+            Order.Status.PAID, EnumSet.of(Order.Status.SHIPPED, Order.Status.CANCELLED),
+            Order.Status.SHIPPED, EnumSet.of(Order.Status.DELIVERED),
+            Order.Status.DELIVERED, EnumSet.noneOf(Order.Status.class),
+            Order.Status.CANCELLED, EnumSet.noneOf(Order.Status.class)));
+    private static final Set<Order.Status> CANCELLABLE_STATUSES = allowedFrom(Order.Status.CANCELLED);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_SIZE = 1000;
+
     private final OrderRepository orderRepository;
     private final OrderDetailRepository orderDetailRepository;
     private final ProductRepository productRepository;
     private final PaymentService paymentService;
     private final com.husc.productmanagement.repository.UserRepository userRepository;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationService stockReservationService;
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findAll());
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<OrderDTO> getOrderPage(Integer page, Integer size) {
+        Page<Order> orders = orderRepository.findAll(pageRequest(page, size));
+        return PageResponse.of(orders, convertToDTOs(orders.getContent()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getRecentOrders() {
+        return convertToDTOs(orderRepository.findTop10ByOrderByCreatedAtDescIdDesc());
     }
 
     @Transactional(readOnly = true)
@@ -54,30 +98,44 @@ public class OrderService {
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByEmail(String email) {
-        return orderRepository.findByEmail(email).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByEmail(email));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<OrderDTO> getOrderPageByEmail(String email, Integer page, Integer size) {
+        Page<Order> orders = orderRepository.findByEmail(email, pageRequest(page, size));
+        return PageResponse.of(orders, convertToDTOs(orders.getContent()));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserId(Integer userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByUserId(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<OrderDTO> getOrderPageByUserId(Integer userId, Integer page, Integer size) {
+        Page<Order> orders = orderRepository.findByUserId(userId, pageRequest(page, size));
+        return PageResponse.of(orders, convertToDTOs(orders.getContent()));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByStatus(String status) {
         Order.Status orderStatus = Order.Status.fromValue(status);
-        return orderRepository.findByStatus(orderStatus).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByStatus(orderStatus));
     }
 
+    @Transactional(readOnly = true)
+    public PageResponse<OrderDTO> getOrderPageByStatus(String status, Integer page, Integer size) {
+        Order.Status orderStatus = Order.Status.fromValue(status);
+        Page<Order> orders = orderRepository.findByStatus(orderStatus, pageRequest(page, size));
+        return PageResponse.of(orders, convertToDTOs(orders.getContent()));
+    }
+
+    // callerId is the authenticated user, null for guests; the body's userId is not trusted on its own
     @Transactional
-    public OrderDTO createOrder(OrderDTO orderDTO) {
+    public OrderDTO createOrder(OrderDTO orderDTO, Integer callerId) {
         // Generate order code
-        String orderCode = generateOrderCode();
+        String orderCode = orderCodeGenerator.nextCode();
 
         // Create order
         Order order = new Order();
@@ -89,9 +147,10 @@ public class OrderService {
         order.setPaymentMethod(orderDTO.getPaymentMethod());
         order.setStatus(Order.Status.PENDING);
 
-        if (orderDTO.getUserId() != null) {
-            com.husc.productmanagement.entity.User user = userRepository.findById(orderDTO.getUserId())
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + orderDTO.getUserId()));
+        // Without a caller, or with a userId that is not the caller's, it is a guest order
+        if (callerId != null && (orderDTO.getUserId() == null || callerId.equals(orderDTO.getUserId()))) {
+            com.husc.productmanagement.entity.User user = userRepository.findById(callerId)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + callerId));
             order.setUser(user);
         }
 
@@ -99,14 +158,39 @@ public class OrderService {
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderDetail> orderDetails = new ArrayList<>();
 
-        for (OrderItemDTO itemDTO : orderDTO.getItems()) {
-            Product product = productRepository.findById(itemDTO.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + itemDTO.getProductId()));
+        // Load every product of the order in one query
+        Map<Integer, Product> products = productRepository.findAllById(orderDTO.getItems().stream()
+                        .map(OrderItemDTO::getProductId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
 
-            // Check stock
-            if (product.getQuantity() < itemDTO.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+        // Quantities per product, ordered by id so concurrent checkouts lock rows in the same order
+        Map<Integer, Integer> requested = new TreeMap<>();
+        for (OrderItemDTO itemDTO : orderDTO.getItems()) {
+            if (!products.containsKey(itemDTO.getProductId())) {
+                throw new RuntimeException("Product not found with id: " + itemDTO.getProductId());
             }
+            requested.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        // Cover the lines with stock holds first so the order cannot take stock held by other carts
+        String owner = order.getUser() != null
+                ? StockReservationService.cartOwner(order.getUser().getId())
+                : StockReservationService.orderOwner(orderCode);
+        List<Integer> unavailable = stockReservationService.claimForOrder(owner, requested);
+        if (!unavailable.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for product: " + products.get(unavailable.get(0)).getName());
+        }
+
+        // Check and reserve stock for all lines in one batch so concurrent checkouts cannot oversell
+        List<Integer> outOfStock = productRepository.decrementStock(requested);
+        if (!outOfStock.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for product: " + products.get(outOfStock.get(0)).getName());
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(requested.keySet()));
+
+        for (OrderItemDTO itemDTO : orderDTO.getItems()) {
+            Product product = products.get(itemDTO.getProductId());
 
             // Create order detail
             OrderDetail detail = new OrderDetail();
@@ -118,10 +202,6 @@ public class OrderService {
 
             orderDetails.add(detail);
             totalAmount = totalAmount.add(detail.getSubtotal());
-
-            // Update product quantity
-            product.setQuantity(product.getQuantity() - itemDTO.getQuantity());
-            productRepository.save(product);
         }
 
         order.setTotalAmount(totalAmount);
@@ -129,20 +209,19 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
 
-        // Automatically create payment record with PENDING status
-        try {
-            PaymentRequest paymentRequest = new PaymentRequest();
-            paymentRequest.setOrderId(savedOrder.getId());
-            paymentRequest.setAmount(savedOrder.getTotalAmount());
-            paymentRequest.setPaymentMethod(savedOrder.getPaymentMethod());
-            paymentRequest.setStatus("pending");
-            paymentService.createPayment(savedOrder.getId(), paymentRequest);
-        } catch (Exception e) {
-            // Log error but don't fail order creation
-            System.err.println("Failed to create payment record: " + e.getMessage());
-        }
-
-        return convertToDTO(savedOrder);
+        // Payment record, dashboard counters and inventory logs are created after commit (OrderEventHandler)
+        outboxService.enqueue(OutboxEvent.Type.ORDER_CREATED, savedOrder.getId(),
+                Map.of("status", savedOrder.getStatus().getValue()));
+
+        // The response shows that payment as pending; it has no id until the outbox has written it
+        OrderDTO created = convertToDTO(savedOrder);
+        PaymentDTO payment = new PaymentDTO();
+        payment.setOrderId(savedOrder.getId());
+        payment.setAmount(savedOrder.getTotalAmount());
+        payment.setPaymentMethod(savedOrder.getPaymentMethod());
+        payment.setStatus(Payment.Status.PENDING.getValue());
+        created.setPayments(List.of(payment));
+        return created;
     }
 
     @Transactional
@@ -159,23 +238,20 @@ public class OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
+        Order.Status oldStatus = order.getStatus();
+        if (!TRANSITIONS.get(oldStatus).contains(newStatus)) {
+            throw new RuntimeException("Cannot change order status from " + oldStatus.getValue()
+                    + " to " + newStatus.getValue());
+        }
+        // Claim the transition so concurrent updates cannot both count the same status change
+        if (orderRepository.updateStatusIfIn(id, newStatus, EnumSet.of(oldStatus)) == 0) {
+            throw new RuntimeException("Order status changed concurrently, cannot update order: " + id);
+        }
         order.setStatus(newStatus);
         Order updatedOrder = orderRepository.save(order);
 
-        // If order status is PAID or DELIVERED, update payment status to PAID
-        if (newStatus == Order.Status.PAID || newStatus == Order.Status.DELIVERED) {
-            try {
-                List<PaymentDTO> paymentsForOrder = paymentService.getPaymentsByOrderId(id);
-                for (PaymentDTO paymentDTO : paymentsForOrder) {
-                    if ("pending".equalsIgnoreCase(paymentDTO.getStatus())) {
-                        paymentService.updatePaymentStatus(paymentDTO.getId(), "paid");
-                    }
-                }
-            } catch (Exception e) {
-                // Log error but don't fail order status update
-                System.err.println("Failed to update payment status: " + e.getMessage());
-            }
-        }
+        // Dashboard counters and, for PAID or DELIVERED, settling the pending payments run after commit
+        outboxService.enqueue(OutboxEvent.Type.ORDER_STATUS_CHANGED, id, statusChange(oldStatus, newStatus));
 
         return convertToDTO(updatedOrder);
     }
@@ -185,29 +261,154 @@ public class OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
-        if (order.getStatus() == Order.Status.SHIPPED ||
-                order.getStatus() == Order.Status.DELIVERED ||
-                order.getStatus() == Order.Status.CANCELLED) {
+        if (!CANCELLABLE_STATUSES.contains(order.getStatus())) {
             throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
         }
 
+        // Claim the transition first so two concurrent cancels cannot both restore stock
+        if (orderRepository.updateStatusIfIn(id, Order.Status.CANCELLED, CANCELLABLE_STATUSES) == 0) {
+            throw new RuntimeException("Order status changed concurrently, cannot cancel order: " + id);
+        }
+        Order.Status previousStatus = order.getStatus();
+        order.setStatus(Order.Status.CANCELLED);
+        outboxService.enqueue(OutboxEvent.Type.ORDER_STATUS_CHANGED, id,
+                statusChange(previousStatus, Order.Status.CANCELLED));
+
         // Restore product quantities
+        Set<Integer> restocked = new HashSet<>();
         for (OrderDetail detail : order.getOrderDetails()) {
-            Product product = detail.getProduct();
-            product.setQuantity(product.getQuantity() + detail.getQuantity());
-            productRepository.save(product);
+            productRepository.incrementStock(detail.getProduct().getId(), detail.getQuantity());
+            restocked.add(detail.getProduct().getId());
         }
+        eventPublisher.publishEvent(new StockChangedEvent(restocked));
+    }
 
-        order.setStatus(Order.Status.CANCELLED);
-        orderRepository.save(order);
+    // Moves many orders to one status with set-based statements; returns one result per requested id or code
+    @Transactional
+    public List<OrderStatusResult> updateOrderStatuses(List<Integer> ids, List<String> orderCodes, String status) {
+        Order.Status newStatus = Order.Status.valueOf(status.toUpperCase());
+        Set<Integer> requestedIds = ids == null ? Set.of() : new LinkedHashSet<>(ids);
+        Set<String> requestedCodes = orderCodes == null ? Set.of() : new LinkedHashSet<>(orderCodes);
+        if (requestedIds.isEmpty() && requestedCodes.isEmpty()) {
+            throw new RuntimeException("No orders given");
+        }
+        if (requestedIds.size() + requestedCodes.size() > MAX_BULK_SIZE) {
+            throw new RuntimeException("At most " + MAX_BULK_SIZE + " orders can be updated at once");
+        }
+
+        Set<Order.Status> allowedFrom = allowedFrom(newStatus);
+
+        // One locking read validates every transition
+        List<Order> orders = orderRepository.findForUpdate(requestedIds, requestedCodes);
+        Map<Integer, Map<String, String>> changes = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (allowedFrom.contains(order.getStatus())) {
+                changes.put(order.getId(), statusChange(order.getStatus(), newStatus));
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            // The rows are locked, so every selected order must still be in an allowed status
+            if (orderRepository.updateStatusIfIn(changes.keySet(), newStatus, allowedFrom) != changes.size()) {
+                throw new RuntimeException("Order statuses changed concurrently, nothing was updated");
+            }
+            if (newStatus == Order.Status.PAID || newStatus == Order.Status.DELIVERED) {
+                // Settled here in one statement; the per-order outbox sync then finds nothing left
+                paymentService.markPendingPaymentsPaid(changes.keySet());
+            } else if (newStatus == Order.Status.CANCELLED) {
+                restock(changes.keySet());
+            }
+            outboxService.enqueueAll(OutboxEvent.Type.ORDER_STATUS_CHANGED, changes);
+        }
+
+        Map<Integer, Order> ordersById = orders.stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Map<String, Order> ordersByCode = orders.stream()
+                .collect(Collectors.toMap(Order::getOrderCode, Function.identity()));
+        List<OrderStatusResult> results = new ArrayList<>();
+        for (Integer id : requestedIds) {
+            results.add(statusResult(ordersById.get(id), id, null, newStatus, changes));
+        }
+        for (String orderCode : requestedCodes) {
+            results.add(statusResult(ordersByCode.get(orderCode), null, orderCode, newStatus, changes));
+        }
+        return results;
     }
 
-    private String generateOrderCode() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return "ORD" + timestamp;
+    // Gives the stock of the orders back, one UPDATE per product in id order
+    private void restock(Collection<Integer> orderIds) {
+        Set<Integer> restocked = new HashSet<>();
+        for (Object[] row : orderDetailRepository.sumQuantityByProductForOrders(orderIds)) {
+            Integer productId = (Integer) row[0];
+            productRepository.incrementStock(productId, ((Number) row[1]).intValue());
+            restocked.add(productId);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(restocked));
+    }
+
+    private OrderStatusResult statusResult(Order order, Integer id, String orderCode, Order.Status newStatus,
+            Map<Integer, Map<String, String>> changes) {
+        if (order == null) {
+            return new OrderStatusResult(id, orderCode, null, null, false, "Order not found");
+        }
+        // order still holds the status it had before the bulk UPDATE
+        String previous = order.getStatus().getValue();
+        if (changes.containsKey(order.getId())) {
+            return new OrderStatusResult(order.getId(), order.getOrderCode(), previous, newStatus.getValue(), true,
+                    "Order status updated");
+        }
+        String message = order.getStatus() == newStatus
+                ? "Order is already " + previous
+                : "Cannot change order status from " + previous + " to " + newStatus.getValue();
+        return new OrderStatusResult(order.getId(), order.getOrderCode(), previous, previous, false, message);
+    }
+
+    // Statuses from which an order may move to the given one
+    private static Set<Order.Status> allowedFrom(Order.Status target) {
+        Set<Order.Status> from = EnumSet.noneOf(Order.Status.class);
+        TRANSITIONS.forEach((status, targets) -> {
+            if (targets.contains(target)) {
+                from.add(status);
+            }
+        });
+        return from;
+    }
+
+    private Map<String, String> statusChange(Order.Status from, Order.Status to) {
+        return Map.of("from", from.getValue(), "to", to.getValue());
+    }
+
+    private PageRequest pageRequest(Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(page, 0);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return PageRequest.of(pageNumber, pageSize,
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
     }
 
     private OrderDTO convertToDTO(Order order) {
+        return convertToDTOs(List.of(order)).get(0);
+    }
+
+    private List<OrderDTO> convertToDTOs(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // One query for the lines with their products and one for the payments, whatever the page size
+        List<Integer> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Integer, List<OrderDetail>> detailsByOrder = orderDetailRepository.findWithProductByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.groupingBy(detail -> detail.getOrder().getId()));
+        Map<Integer, List<PaymentDTO>> paymentsByOrder = paymentService.getPaymentsByOrderIds(orderIds);
+
+        return orders.stream()
+                .map(order -> convertToDTO(order,
+                        detailsByOrder.getOrDefault(order.getId(), Collections.emptyList()),
+                        paymentsByOrder.getOrDefault(order.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+
+    private OrderDTO convertToDTO(Order order, List<OrderDetail> details, List<PaymentDTO> payments) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setOrderCode(order.getOrderCode());
@@ -221,7 +422,7 @@ public class OrderService {
         dto.setCreatedAt(order.getCreatedAt());
 
         // Convert order details
-        List<OrderItemDTO> items = order.getOrderDetails().stream()
+        List<OrderItemDTO> items = details.stream()
                 .map(detail -> {
                     OrderItemDTO itemDTO = new OrderItemDTO();
                     itemDTO.setProductId(detail.getProduct().getId());
@@ -233,15 +434,7 @@ public class OrderService {
                 })
                 .collect(Collectors.toList());
         dto.setItems(items);
-
-        // Convert payments
-        try {
-            List<PaymentDTO> payments = paymentService.getPaymentsByOrderId(order.getId());
-            dto.setPayments(payments);
-        } catch (Exception e) {
-            // If payment service fails, set empty list
-            dto.setPayments(new ArrayList<>());
-        }
+        dto.setPayments(payments);
 
         return dto;
     }
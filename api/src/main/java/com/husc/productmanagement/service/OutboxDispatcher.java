@@ -0,0 +1,274 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.OutboxEvent;
+import com.husc.productmanagement.event.OutboxEnqueuedEvent;
+import com.husc.productmanagement.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs the pending outbox events. A drain is started right after a transaction that wrote
+ * events commits, and by a poll for anything left behind (restarts, retries, other
+ * instances). Each drain reads the runnable pending events in id order in batches, skipping
+ * the orders whose oldest pending event is backing off; the events of one order run one
+ * after the other on the same worker, different orders run in parallel.
+ * An event is claimed in the transaction of its handler, so it is applied exactly once.
+ * A failed event is retried with exponential backoff and later events of its order wait
+ * for it; after outbox.max-attempts it is marked failed and left for inspection.
+ * runPaused lets a rebuild of the derived data run with no event in flight.
+ * Workers are virtual threads when spring.threads.virtual.enabled is set on Java 21;
+ * outbox.workers still bounds how many orders are handled at once.
+ */
+@Slf4j
+@Service
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderEventHandler orderEventHandler;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration retention;
+    private final ExecutorService coordinator;
+    private final ThreadPoolExecutor workers;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // Set by every wake-up, so events written while a drain is finishing are not missed
+    private final AtomicBoolean requested = new AtomicBoolean();
+    // Read-held by every handler run, write-held by runPaused
+    private final ReentrantReadWriteLock pauseLock = new ReentrantReadWriteLock();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, OrderEventHandler orderEventHandler,
+            TransactionTemplate transactionTemplate,
+            @Value("${outbox.batch-size:100}") int batchSize,
+            @Value("${outbox.workers:2}") int workerCount,
+            @Value("${outbox.max-attempts:10}") int maxAttempts,
+            @Value("${outbox.retry-delay:1s}") Duration retryDelay,
+            @Value("${outbox.retention:7d}") Duration retention,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderEventHandler = orderEventHandler;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.retention = retention;
+        this.coordinator = Executors.newSingleThreadExecutor(daemonThreads("outbox-dispatcher"));
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), virtualThreads && Runtime.version().feature() >= 21
+                        ? new VirtualThreadTaskExecutor("outbox-worker-").getVirtualThreadFactory()
+                        : daemonThreads("outbox-worker"));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnqueued(OutboxEnqueuedEvent event) {
+        wake();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        wake();
+    }
+
+    // Deletes handled events once they are older than outbox.retention; failed ones are kept
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void deleteProcessed() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deleteProcessedBefore(OutboxEvent.Status.DONE, before));
+    }
+
+    public void wake() {
+        requested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                coordinator.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the events stay pending for the next start
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Runs the pending events on the calling thread, then the task, with every worker held
+     * off until it returns. Used by rebuilds that recompute counters from the orders table,
+     * which would otherwise count the orders of still-pending events twice. Must not be
+     * called inside a transaction.
+     */
+    public <T> T runPaused(Supplier<T> task) {
+        pauseLock.writeLock().lock();
+        try {
+            while (dispatchBatch(false)) {
+                // Keep going until a batch is not full or nothing could be handled
+            }
+            return task.get();
+        } finally {
+            pauseLock.writeLock().unlock();
+            wake();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        coordinator.shutdown();
+        coordinator.awaitTermination(10, TimeUnit.SECONDS);
+        workers.shutdown();
+    }
+
+    private void drain() {
+        try {
+            while (requested.getAndSet(false)) {
+                while (dispatchBatch(true)) {
+                    // A full batch was dispatched, more events may be waiting
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox drain failed, retrying on the next poll: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+        // A wake-up that arrived after the last check but before draining was cleared
+        if (requested.get()) {
+            wake();
+        }
+    }
+
+    // Returns true if the batch was full and at least one event was handled
+    private boolean dispatchBatch(boolean parallel) {
+        // Paused: run everything now, backing off or not
+        List<OutboxEvent> batch = parallel
+                ? outboxEventRepository.findRunnable(OutboxEvent.Status.PENDING, LocalDateTime.now(),
+                        PageRequest.of(0, batchSize))
+                : outboxEventRepository.findByStatusOrderByIdAsc(OutboxEvent.Status.PENDING, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        Map<Integer, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byAggregate.computeIfAbsent(event.getAggregateId(), key -> new ArrayList<>()).add(event);
+        }
+
+        int handled = 0;
+        if (!parallel) {
+            for (List<OutboxEvent> events : byAggregate.values()) {
+                handled += runInOrder(events);
+            }
+            return batch.size() == batchSize && handled > 0;
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (List<OutboxEvent> events : byAggregate.values()) {
+            tasks.add(() -> runInOrder(events));
+        }
+
+        try {
+            for (Future<Integer> result : workers.invokeAll(tasks)) {
+                handled += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            throw new RuntimeException("Outbox worker failed: " + e.getMessage(), e);
+        }
+        return batch.size() == batchSize && handled > 0;
+    }
+
+    // Stops at the first failure so the order's later events are not applied before it
+    private int runInOrder(List<OutboxEvent> events) {
+        int handled = 0;
+        for (OutboxEvent event : events) {
+            if (!run(event)) {
+                break;
+            }
+            handled++;
+        }
+        return handled;
+    }
+
+    private boolean run(OutboxEvent event) {
+        // The write lock holder may take the read lock too, so paused runs go through here as well
+        pauseLock.readLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Another instance got here first; the row lock makes us wait for its outcome
+                if (outboxEventRepository.claim(event.getId(), LocalDateTime.now(),
+                        OutboxEvent.Status.PENDING, OutboxEvent.Status.DONE) == 0) {
+                    return;
+                }
+                orderEventHandler.handle(event);
+            });
+            return true;
+        } catch (RuntimeException e) {
+            recordFailure(event, e);
+            return false;
+        } finally {
+            pauseLock.readLock().unlock();
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException error) {
+        int attempts = event.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        // 1x, 2x, 4x ... the retry delay, capped at 2^10
+        LocalDateTime availableAt = LocalDateTime.now().plus(retryDelay.multipliedBy(1L << Math.min(attempts - 1, 10)));
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > 500) {
+            message = message.substring(0, 500);
+        }
+        if (giveUp) {
+            log.error("Outbox event {} ({} of order {}) failed {} times, giving up: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), attempts, message);
+        } else {
+            log.warn("Outbox event {} ({} of order {}) failed, retrying at {}: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), availableAt, message);
+        }
+
+        String lastError = message;
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.recordFailure(event.getId(),
+                    giveUp ? OutboxEvent.Status.FAILED : OutboxEvent.Status.PENDING, attempts, availableAt, lastError));
+        } catch (RuntimeException e) {
+            log.warn("Cannot record failure of outbox event {}: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.husc.productmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.husc.productmanagement.entity.OutboxEvent;
+import com.husc.productmanagement.event.OutboxEnqueuedEvent;
+import com.husc.productmanagement.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events " +
+            "(event_type, aggregate_id, payload, status, attempts, available_at, created_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?, CURRENT_TIMESTAMP)";
+
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Must join the caller's transaction so the event commits or rolls back with the change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxEvent.Type type, Integer aggregateId, Map<String, String> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setAggregateId(aggregateId);
+        event.setAvailableAt(LocalDateTime.now());
+        event.setPayload(writePayload(payload));
+        outboxEventRepository.save(event);
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent());
+    }
+
+    // One event per aggregate, written as a JDBC batch for bulk changes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(OutboxEvent.Type type, Map<Integer, Map<String, String>> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        payloads.forEach((aggregateId, payload) -> rows.add(new Object[] {
+                type.getValue(), aggregateId, writePayload(payload), OutboxEvent.Status.PENDING.getValue(), now }));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent());
+    }
+
+    public Map<String, String> readPayload(OutboxEvent event) {
+        if (event.getPayload() == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid outbox payload of event " + event.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private String writePayload(Map<String, String> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Cannot serialize outbox payload: " + e.getMessage());
+        }
+    }
+}
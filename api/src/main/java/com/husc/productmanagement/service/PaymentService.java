@@ -1,23 +1,34 @@
 package com.husc.productmanagement.service;
 
+import com.husc.productmanagement.dto.CursorPage;
 import com.husc.productmanagement.dto.PaymentDTO;
 import com.husc.productmanagement.dto.PaymentRequest;
 import com.husc.productmanagement.entity.Order;
 import com.husc.productmanagement.entity.Payment;
 import com.husc.productmanagement.repository.OrderRepository;
 import com.husc.productmanagement.repository.PaymentRepository;
+import com.husc.productmanagement.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
 
@@ -56,13 +67,56 @@ public class PaymentService {
     }
 
     @Transactional(readOnly = true)
-    public List<PaymentDTO> getPaymentsByUserId(Integer userId) {
-        // Get all orders for the user, then get payments for those orders
-        List<Order> userOrders = orderRepository.findByUserId(userId);
-        return userOrders.stream()
-                .flatMap(order -> paymentRepository.findByOrderId(order.getId()).stream())
+    public Map<Integer, List<PaymentDTO>> getPaymentsByOrderIds(Collection<Integer> orderIds) {
+        return paymentRepository.findByOrderIdIn(orderIds).stream()
                 .map(this::convertToDTO)
+                .collect(Collectors.groupingBy(PaymentDTO::getOrderId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentDTO> getPaymentsByUserId(Integer userId) {
+        return paymentRepository.findRowsByUserId(userId).stream()
+                .map(this::convertRowToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Keyset page of a user's payments, newest order first; the cursor is (order createdAt, payment id)
+    @Transactional(readOnly = true)
+    public CursorPage<PaymentDTO> getPaymentPageByUserId(Integer userId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Object[]> rows;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorUtil.decode(cursor, 3);
+            if (!"USER_PAYMENTS".equals(parts[0])) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime afterCreatedAt;
+            int afterId;
+            try {
+                afterCreatedAt = LocalDateTime.parse(parts[1]);
+                afterId = Integer.parseInt(parts[2]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+            rows = paymentRepository.findRowsByUserIdAfter(userId, afterCreatedAt, afterId, limit);
+        } else {
+            rows = paymentRepository.findRowsByUserId(userId, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        Object[] last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        String nextCursor = hasMore
+                ? CursorUtil.encode("USER_PAYMENTS", last[6].toString(), last[0].toString())
+                : null;
+        List<PaymentDTO> payments = rows.stream()
+                .map(this::convertRowToDTO)
                 .collect(Collectors.toList());
+        return new CursorPage<>(payments, pageSize, hasMore, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -88,6 +142,19 @@ public class PaymentService {
         return convertToDTO(updatedPayment);
     }
 
+    // Settles the pending payments of an order in one statement, returns how many changed
+    @Transactional
+    public int markPendingPaymentsPaid(Integer orderId) {
+        return paymentRepository.updateStatusByOrderId(orderId, Payment.Status.PENDING, Payment.Status.PAID,
+                LocalDateTime.now());
+    }
+
+    @Transactional
+    public int markPendingPaymentsPaid(Collection<Integer> orderIds) {
+        return paymentRepository.updateStatusByOrderIdIn(orderIds, Payment.Status.PENDING, Payment.Status.PAID,
+                LocalDateTime.now());
+    }
+
     @Transactional
     public PaymentDTO processPayment(Integer orderId, PaymentRequest request) {
         // Create payment
@@ -106,6 +173,11 @@ public class PaymentService {
         return payment;
     }
 
+    private PaymentDTO convertRowToDTO(Object[] row) {
+        return new PaymentDTO((Integer) row[0], (Integer) row[1], (BigDecimal) row[2], (String) row[3],
+                ((Payment.Status) row[4]).getValue(), (LocalDateTime) row[5]);
+    }
+
     private PaymentDTO convertToDTO(Payment payment) {
         PaymentDTO dto = new PaymentDTO();
         dto.setId(payment.getId());
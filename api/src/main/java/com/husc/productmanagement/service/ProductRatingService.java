@@ -4,12 +4,15 @@ import com.husc.productmanagement.dto.ProductRatingDTO;
 import com.husc.productmanagement.entity.Product;
 import com.husc.productmanagement.entity.ProductRating;
 import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.event.RatingChangedEvent;
 import com.husc.productmanagement.repository.ProductRatingRepository;
 import com.husc.productmanagement.repository.ProductRepository;
 import com.husc.productmanagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +24,8 @@ public class ProductRatingService {
     private final ProductRatingRepository ratingRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductRatingDTO> getRatingsByProductId(Integer productId) {
@@ -51,15 +56,57 @@ public class ProductRatingService {
         rating.setComment(ratingDTO.getComment());
 
         ProductRating savedRating = ratingRepository.save(rating);
+        applyRatingDelta(product.getId(), savedRating.getRating(), 1);
+        eventPublisher.publishEvent(new RatingChangedEvent(product.getId()));
         return convertToDTO(savedRating);
     }
 
     @Transactional
     public void deleteRating(Integer id) {
-        if (!ratingRepository.existsById(id)) {
-            throw new RuntimeException("Rating not found with id: " + id);
+        ProductRating rating = ratingRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Rating not found with id: " + id));
+        ratingRepository.delete(rating);
+        applyRatingDelta(rating.getProduct().getId(), rating.getRating(), -1);
+        eventPublisher.publishEvent(new RatingChangedEvent(rating.getProduct().getId()));
+    }
+
+    /**
+     * Recomputes the rating summary columns of every product from product_ratings,
+     * one id range per transaction. Used for backfills and to repair drift.
+     *
+     * @return number of product rows rewritten
+     */
+    public int rebuildRatingSummaries(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new RuntimeException("Chunk size must be greater than 0");
+        }
+
+        Integer maxId = productRepository.findMaxId();
+        if (maxId == null) {
+            return 0;
         }
-        ratingRepository.deleteById(id);
+
+        int updated = 0;
+        for (int fromId = 1; fromId <= maxId; fromId += chunkSize) {
+            int from = fromId;
+            int to = fromId + chunkSize - 1;
+            Integer rows = transactionTemplate.execute(status -> productRepository.rebuildRatingSummaries(from, to));
+            updated += rows != null ? rows : 0;
+        }
+        return updated;
+    }
+
+    // sign is +1 when a rating is added and -1 when it is removed
+    private void applyRatingDelta(Integer productId, int value, int sign) {
+        productRepository.applyRatingDelta(
+                productId,
+                (long) sign * value,
+                sign,
+                value == 1 ? sign : 0,
+                value == 2 ? sign : 0,
+                value == 3 ? sign : 0,
+                value == 4 ? sign : 0,
+                value == 5 ? sign : 0);
     }
 
     private ProductRatingDTO convertToDTO(ProductRating rating) {
@@ -0,0 +1,319 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.CategoryChangedEvent;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over product name, category name and description.
+ * Ranks with BM25 over field-weighted term frequencies and supports prefix and
+ * one-edit typo matching. Kept current from ProductChangedEvent and
+ * CategoryChangedEvent after the writing transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float PREFIX_FACTOR = 0.8f;
+    private static final float FUZZY_FACTOR = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    // term -> (productId -> weighted term frequency)
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    // single-deletion variant -> terms that produce it, for typo lookups
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private double totalLength;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            deletions.clear();
+            totalLength = 0;
+            for (Product product : products) {
+                add(new Document(product.getId(), product.getName(), product.getDescription(),
+                        product.getCategory().getId(), product.getCategory().getName()));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getProductId());
+            if (!event.isDeleted()) {
+                add(new Document(event.getProductId(), event.getName(), event.getDescription(),
+                        event.getCategoryId(), event.getCategoryName()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isDeleted()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Document> affected = documents.values().stream()
+                    .filter(doc -> event.getCategoryId().equals(doc.categoryId))
+                    .collect(Collectors.toList());
+            for (Document doc : affected) {
+                remove(doc.id);
+                add(new Document(doc.id, doc.name, doc.description, doc.categoryId, event.getName()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the ids of products matching every term of the query, best match first.
+     */
+    public List<Integer> search(String query) {
+        List<String> queryTerms = TextNormalizer.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Integer, Double> termScores = scoreTerm(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Every query term must match
+                    Map<Integer, Double> merged = new HashMap<>();
+                    for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                        Double termScore = termScores.get(entry.getKey());
+                        if (termScore != null) {
+                            merged.put(entry.getKey(), entry.getValue() + termScore);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Double> scoreTerm(String queryTerm) {
+        Map<String, Float> expansions = expand(queryTerm);
+        double averageLength = documents.isEmpty() ? 1.0 : totalLength / documents.size();
+
+        // A document scores with its best expansion of the query term, not their sum
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+            Map<Integer, Float> posting = postings.get(expansion.getKey());
+            double df = posting.size();
+            double idf = Math.log(1 + (documents.size() - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Integer, Float> entry : posting.entrySet()) {
+                double tf = entry.getValue();
+                double length = documents.get(entry.getKey()).length;
+                double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength))
+                        * expansion.getValue();
+                scores.merge(entry.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private Map<String, Float> expand(String queryTerm) {
+        Map<String, Float> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            expansions.put(queryTerm, 1.0f);
+        }
+
+        if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(term -> expansions.putIfAbsent(term, PREFIX_FACTOR));
+        }
+
+        if (queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>(deletions.getOrDefault(queryTerm, Set.of()));
+            for (String variant : deletionsOf(queryTerm)) {
+                if (postings.containsKey(variant)) {
+                    candidates.add(variant);
+                }
+                candidates.addAll(deletions.getOrDefault(variant, Set.of()));
+            }
+            for (String candidate : candidates) {
+                if (!expansions.containsKey(candidate) && isOneEditAway(queryTerm, candidate)) {
+                    expansions.put(candidate, FUZZY_FACTOR);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private void add(Document doc) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, doc.name, NAME_WEIGHT);
+        length += addField(frequencies, doc.categoryName, CATEGORY_WEIGHT);
+        length += addField(frequencies, doc.description, DESCRIPTION_WEIGHT);
+        doc.frequencies = frequencies;
+        doc.length = length;
+
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            Map<Integer, Float> posting = postings.get(entry.getKey());
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(entry.getKey(), posting);
+                for (String variant : deletionsOf(entry.getKey())) {
+                    deletions.computeIfAbsent(variant, k -> new HashSet<>()).add(entry.getKey());
+                }
+            }
+            posting.put(doc.id, entry.getValue());
+        }
+        documents.put(doc.id, doc);
+        totalLength += length;
+    }
+
+    private void remove(Integer productId) {
+        Document doc = documents.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        totalLength -= doc.length;
+        for (String term : doc.frequencies.keySet()) {
+            Map<Integer, Float> posting = postings.get(term);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+                for (String variant : deletionsOf(term)) {
+                    Set<String> terms = deletions.get(variant);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        deletions.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, float weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static Set<String> deletionsOf(String term) {
+        Set<String> variants = new HashSet<>();
+        if (term.length() < MIN_FUZZY_LENGTH - 1) {
+            return variants;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // Optimal string alignment distance <= 1: one insertion, deletion, substitution or transposition
+    private static boolean isOneEditAway(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (Math.abs(lengthDiff) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDiff > 0) {
+            return a.substring(i + 1).equals(b.substring(i));
+        }
+        if (lengthDiff < 0) {
+            return a.substring(i).equals(b.substring(i + 1));
+        }
+        if (i == a.length()) {
+            return true;
+        }
+        if (a.substring(i + 1).equals(b.substring(i + 1))) {
+            return true;
+        }
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1)
+                && a.charAt(i + 1) == b.charAt(i)
+                && a.substring(i + 2).equals(b.substring(i + 2));
+    }
+
+    private static class Document {
+        private final Integer id;
+        private final String name;
+        private final String description;
+        private final Integer categoryId;
+        private final String categoryName;
+        private Map<String, Float> frequencies;
+        private float length;
+
+        Document(Integer id, String name, String description, Integer categoryId, String categoryName) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+        }
+    }
+}
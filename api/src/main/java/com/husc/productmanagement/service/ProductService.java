@@ -1,38 +1,87 @@
 package com.husc.productmanagement.service;
 
+import com.husc.productmanagement.config.CacheConfig;
+import com.husc.productmanagement.dto.CursorPage;
 import com.husc.productmanagement.dto.ProductDTO;
 import com.husc.productmanagement.entity.Category;
 import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.event.ProductChangedEvent;
 import com.husc.productmanagement.repository.CategoryRepository;
-import com.husc.productmanagement.repository.ProductRatingRepository;
+import com.husc.productmanagement.repository.ProductQuery;
 import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.repository.ProductSort;
+import com.husc.productmanagement.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_FILTER_LIMIT = 100;
+    private static final int MAX_FILTER_LIMIT = 500;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final ProductRatingRepository ratingRepository;
+    private final ProductSearchIndex searchIndex;
+    private final FeaturedProductRanking featuredRanking;
+    private final LowStockAlertPublisher lowStockAlertPublisher;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(productRepository.findAll());
     }
 
+    @Cacheable(cacheNames = CacheConfig.ACTIVE_PRODUCTS, sync = true)
     @Transactional(readOnly = true)
     public List<ProductDTO> getActiveProducts() {
-        return productRepository.findByStatus(Product.Status.ACTIVE).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(productRepository.findByStatus(Product.Status.ACTIVE));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> getProductPage(Product.Status status, Integer categoryId, String sortBy,
+            String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        ProductSort sort = ProductSort.fromValue(sortBy);
+        if (!sort.isKeysetSupported()) {
+            throw new RuntimeException("Cursor pagination is not supported for sort: " + sortBy);
+        }
+
+        ProductQuery query = new ProductQuery();
+        query.setStatus(status);
+        query.setCategoryId(categoryId);
+        query.setSort(sort);
+        query.setLimit(pageSize + 1);
+        if (cursor != null && !cursor.isBlank()) {
+            applyCursor(query, cursor);
+        }
+
+        List<Product> products = productRepository.findByQuery(query);
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+
+        String nextCursor = hasMore ? encodeCursor(sort, products.get(products.size() - 1)) : null;
+        return new CursorPage<>(convertToDTOs(products), pageSize, hasMore, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -44,63 +93,44 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public List<ProductDTO> getProductsByCategory(Integer categoryId) {
-        return productRepository.findByCategoryId(categoryId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(productRepository.findByCategoryId(categoryId));
     }
 
     @Transactional(readOnly = true)
     public List<ProductDTO> searchProducts(String keyword) {
-        return productRepository.searchByKeyword(keyword).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        if (!searchIndex.isReady()) {
+            return convertToDTOs(productRepository.searchByKeyword(keyword));
+        }
+
+        // Ranking comes from the in-memory index, the database only hydrates the hits
+        return findInOrder(searchIndex.search(keyword));
     }
 
     @Transactional(readOnly = true)
     public List<ProductDTO> filterProducts(String keyword, Integer categoryId, java.math.BigDecimal minPrice,
-            java.math.BigDecimal maxPrice, Double minRating, String sortBy) {
-
-        List<Product> products = productRepository.findWithFilters(keyword, categoryId, minPrice, maxPrice);
-
-        // Filter by status ACTIVE
-        List<ProductDTO> dtos = products.stream()
-                .filter(p -> p.getStatus() == Product.Status.ACTIVE)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        // Filter by rating if provided
-        if (minRating != null) {
-            dtos = dtos.stream()
-                    .filter(p -> p.getAverageRating() != null && p.getAverageRating() >= minRating)
-                    .collect(Collectors.toList());
-        }
-
-        // Sort
-        if (sortBy != null) {
-            switch (sortBy.toLowerCase()) {
-                case "price_asc":
-                    dtos.sort((p1, p2) -> p1.getPrice().compareTo(p2.getPrice()));
-                    break;
-                case "price_desc":
-                    dtos.sort((p1, p2) -> p2.getPrice().compareTo(p1.getPrice()));
-                    break;
-                case "rating":
-                    dtos.sort((p1, p2) -> {
-                        Double r1 = p1.getAverageRating() != null ? p1.getAverageRating() : 0.0;
-                        Double r2 = p2.getAverageRating() != null ? p2.getAverageRating() : 0.0;
-                        return r2.compareTo(r1); // Descending
-                    });
-                    break;
-                case "newest":
-                    // Assuming ID is proxy for newness, or we could add createdAt to DTO
-                    dtos.sort((p1, p2) -> p2.getId().compareTo(p1.getId()));
-                    break;
-                default:
-                    break;
+            java.math.BigDecimal maxPrice, Double minRating, String sortBy, Integer limit) {
+        // Status, rating, sorting and limit are all applied by the database
+        ProductQuery query = new ProductQuery();
+        query.setStatus(Product.Status.ACTIVE);
+        if (keyword != null && !keyword.isBlank()) {
+            if (searchIndex.isReady()) {
+                List<Integer> matches = searchIndex.search(keyword);
+                if (matches.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                query.setIds(matches);
+            } else {
+                query.setKeyword(keyword);
             }
         }
+        query.setCategoryId(categoryId);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setMinRating(minRating);
+        query.setSort(sortBy != null ? ProductSort.fromValue(sortBy) : ProductSort.ID);
+        query.setLimit(limit == null ? DEFAULT_FILTER_LIMIT : Math.min(Math.max(limit, 1), MAX_FILTER_LIMIT));
 
-        return dtos;
+        return convertToDTOs(productRepository.findByQuery(query));
     }
 
     @Transactional
@@ -115,11 +145,13 @@ public class ProductService {
         product.setPrice(productDTO.getPrice());
         product.setDiscountPrice(productDTO.getDiscountPrice());
         product.setQuantity(productDTO.getQuantity());
+        product.setReorderThreshold(productDTO.getReorderThreshold());
         product.setStatus(productDTO.getStatus() != null ? Product.Status.valueOf(productDTO.getStatus().toUpperCase())
                 : Product.Status.ACTIVE);
         product.setCategory(category);
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(toChangedEvent(savedProduct));
         return convertToDTO(savedProduct);
     }
 
@@ -153,11 +185,15 @@ public class ProductService {
         if (productDTO.getQuantity() != null) {
             product.setQuantity(productDTO.getQuantity());
         }
+        if (productDTO.getReorderThreshold() != null) {
+            product.setReorderThreshold(productDTO.getReorderThreshold());
+        }
         if (productDTO.getStatus() != null) {
             product.setStatus(Product.Status.valueOf(productDTO.getStatus().toUpperCase()));
         }
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(toChangedEvent(updatedProduct));
         return convertToDTO(updatedProduct);
     }
 
@@ -167,34 +203,131 @@ public class ProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
+    @Cacheable(cacheNames = CacheConfig.FEATURED_PRODUCTS, sync = true)
     @Transactional(readOnly = true)
     public List<ProductDTO> getFeaturedProducts() {
-        // Featured products: high rating (>= 4.0) and active
-        return productRepository.findByStatus(Product.Status.ACTIVE).stream()
-                .filter(product -> {
-                    Double avgRating = ratingRepository.getAverageRatingByProductId(product.getId());
-                    return avgRating != null && avgRating >= 4.0;
-                })
-                .map(this::convertToDTO)
-                .sorted((p1, p2) -> {
-                    Double r1 = p1.getAverageRating() != null ? p1.getAverageRating() : 0.0;
-                    Double r2 = p2.getAverageRating() != null ? p2.getAverageRating() : 0.0;
-                    return r2.compareTo(r1);
-                })
-                .limit(10)
-                .collect(Collectors.toList());
+        // Featured products: high rating (>= 4.0) and active, ranked in memory
+        if (featuredRanking.isReady()) {
+            return findInOrder(featuredRanking.getTopIds());
+        }
+
+        ProductQuery query = new ProductQuery();
+        query.setStatus(Product.Status.ACTIVE);
+        query.setMinRating(featuredRanking.getMinAverage());
+        query.setSort(ProductSort.RATING);
+        query.setLimit(featuredRanking.getSize());
+        return convertToDTOs(productRepository.findByQuery(query));
     }
 
     @Transactional(readOnly = true)
     public List<ProductDTO> getLowStockProducts() {
-        // Low stock: quantity <= 10
-        int threshold = 10;
-        return productRepository.findByStatus(Product.Status.ACTIVE).stream()
-                .filter(product -> product.getQuantity() <= threshold)
+        // Low stock: quantity <= reorder threshold of the product, its category or the default
+        return convertToDTOs(productRepository.findLowStock(Product.Status.ACTIVE,
+                lowStockAlertPublisher.getDefaultThreshold(), lowStockAlertPublisher.getMaxThreshold(),
+                Pageable.unpaged()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> getLowStockPage(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int defaultThreshold = lowStockAlertPublisher.getDefaultThreshold();
+        int maxThreshold = lowStockAlertPublisher.getMaxThreshold();
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Product> products;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorUtil.decode(cursor, 3);
+            if (!"LOW_STOCK".equals(parts[0])) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+            int afterQuantity;
+            int afterId;
+            try {
+                afterQuantity = Integer.parseInt(parts[1]);
+                afterId = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+            products = productRepository.findLowStockAfter(Product.Status.ACTIVE, defaultThreshold, maxThreshold,
+                    afterQuantity, afterId, limit);
+        } else {
+            products = productRepository.findLowStock(Product.Status.ACTIVE, defaultThreshold, maxThreshold, limit);
+        }
+
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+        Product last = products.isEmpty() ? null : products.get(products.size() - 1);
+        String nextCursor = hasMore
+                ? CursorUtil.encode("LOW_STOCK", last.getQuantity().toString(), last.getId().toString())
+                : null;
+        return new CursorPage<>(convertToDTOs(products), pageSize, hasMore, nextCursor);
+    }
+
+    // Loads the products in one query and returns them in the order of the ids
+    private List<ProductDTO> findInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Product> products = productRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return convertToDTOs(ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    private ProductChangedEvent toChangedEvent(Product product) {
+        return new ProductChangedEvent(product.getId(), product.getName(), product.getDescription(),
+                product.getCategory().getId(), product.getCategory().getName(), false);
+    }
+
+    private String encodeCursor(ProductSort sort, Product last) {
+        String value;
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                value = last.getPrice().toPlainString();
+                break;
+            case NEWEST:
+                value = last.getCreatedAt().toString();
+                break;
+            default:
+                value = "";
+        }
+        return CursorUtil.encode(sort.name(), value, last.getId().toString());
+    }
+
+    private void applyCursor(ProductQuery query, String cursor) {
+        String[] parts = CursorUtil.decode(cursor, 3);
+        if (!query.getSort().name().equals(parts[0])) {
+            throw new RuntimeException("Cursor does not match sort order: " + query.getSort().name().toLowerCase());
+        }
+        try {
+            switch (query.getSort()) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    query.setAfterValue(new BigDecimal(parts[1]));
+                    break;
+                case NEWEST:
+                    query.setAfterValue(LocalDateTime.parse(parts[1]));
+                    break;
+                default:
+                    break;
+            }
+            query.setAfterId(Integer.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private List<ProductDTO> convertToDTOs(List<Product> products) {
+        return products.stream()
                 .map(this::convertToDTO)
-                .sorted((p1, p2) -> p1.getQuantity().compareTo(p2.getQuantity()))
                 .collect(Collectors.toList());
     }
 
@@ -207,15 +340,21 @@ public class ProductService {
         dto.setPrice(product.getPrice());
         dto.setDiscountPrice(product.getDiscountPrice());
         dto.setQuantity(product.getQuantity());
+        dto.setReorderThreshold(product.getReorderThreshold());
         dto.setStatus(product.getStatus().name().toLowerCase());
         dto.setCategoryId(product.getCategory().getId());
         dto.setCategoryName(product.getCategory().getName());
 
-        // Get average rating and total ratings
-        Double avgRating = ratingRepository.getAverageRatingByProductId(product.getId());
-        Long totalRatings = ratingRepository.countRatingsByProductId(product.getId());
-        dto.setAverageRating(avgRating);
-        dto.setTotalRatings(totalRatings);
+        // Rating summary is kept on the product row, no aggregation needed
+        dto.setAverageRating(product.getAverageRating());
+        dto.setTotalRatings(product.getRatingCount().longValue());
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        distribution.put(1, product.getRating1Count().longValue());
+        distribution.put(2, product.getRating2Count().longValue());
+        distribution.put(3, product.getRating3Count().longValue());
+        distribution.put(4, product.getRating4Count().longValue());
+        distribution.put(5, product.getRating5Count().longValue());
+        dto.setRatingDistribution(distribution);
 
         return dto;
     }
@@ -0,0 +1,245 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.entity.Order;
+import com.husc.productmanagement.entity.RevenueRollup;
+import com.husc.productmanagement.repository.OrderRepository;
+import com.husc.productmanagement.repository.RevenueRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Revenue per hour, day and month, kept in revenue_rollups and adjusted whenever an order
+ * enters or leaves a revenue status. Revenue is attributed to the order's creation time.
+ * Requests in the business zone read the DAY/MONTH buckets directly; any other zone is
+ * answered by regrouping the UTC hour buckets, so the cost is the number of buckets in the
+ * range, never the number of orders. For zones with a non whole-hour offset an hour bucket
+ * is attributed to the local period its start falls in.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final DateTimeFormatter HOUR_KEY = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:00");
+    private static final DateTimeFormatter DAY_KEY = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final OrderRepository orderRepository;
+    private final ZoneId businessZone;
+
+    public RevenueRollupService(RevenueRollupRepository revenueRollupRepository, OrderRepository orderRepository,
+            @Value("${dashboard.revenue.zone:UTC}") String businessZone) {
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.orderRepository = orderRepository;
+        this.businessZone = ZoneId.of(businessZone);
+    }
+
+    // sign is 1 when the order starts counting as revenue, -1 when it stops
+    @Transactional
+    public void record(Order order, int sign) {
+        BigDecimal amount = sign < 0 ? order.getTotalAmount().negate() : order.getTotalAmount();
+        addToBuckets(toInstant(order.getCreatedAt()), amount);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getRevenue(String from, String to, String granularity, String zone) {
+        ZoneId zoneId = parseZone(zone);
+        RevenueRollup.Granularity unit = granularity != null
+                ? RevenueRollup.Granularity.fromValue(granularity)
+                : RevenueRollup.Granularity.DAY;
+        ZonedDateTime end = to != null ? parseBound("to", to, zoneId, true) : ZonedDateTime.now(zoneId);
+        ZonedDateTime start = parseBound("from", from, zoneId, false);
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("'from' must be before 'to'");
+        }
+        return getRevenue(start, end, unit, zoneId);
+    }
+
+    // Legacy period view: revenue per day over the last day/week/month/year in the business zone
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getRevenueByPeriod(String period) {
+        ZonedDateTime end = ZonedDateTime.now(businessZone);
+        ZonedDateTime start;
+        switch (period.toLowerCase()) {
+            case "daily":
+                start = end.minusDays(1);
+                break;
+            case "weekly":
+                start = end.minusWeeks(1);
+                break;
+            case "yearly":
+                start = end.minusYears(1);
+                break;
+            case "monthly":
+            default:
+                start = end.minusMonths(1);
+        }
+        return getRevenue(start, end, RevenueRollup.Granularity.DAY, businessZone);
+    }
+
+    @Transactional
+    public void rebuild(Collection<Order.Status> revenueStatuses) {
+        rebuild(revenueStatuses, REBUILD_CHUNK_SIZE);
+    }
+
+    /**
+     * Recomputes every bucket from the orders, reading chunkSize orders at a time in id
+     * order. Each chunk's totals are added to the buckets before the next chunk is read, so
+     * memory stays at one chunk whatever the number of orders; ids roughly follow creation
+     * time, so a bucket is written by only a few chunks. Runs in the caller's transaction.
+     */
+    @Transactional
+    public void rebuild(Collection<Order.Status> revenueStatuses, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new RuntimeException("Chunk size must be greater than 0");
+        }
+        revenueRollupRepository.deleteAllInBatch();
+
+        Integer afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = orderRepository.findRevenueRowsAfter(revenueStatuses, afterId, PageRequest.of(0, chunkSize));
+            Map<RevenueRollup.Key, BigDecimal> buckets = new HashMap<>();
+            for (Object[] row : rows) {
+                Instant createdAt = toInstant((LocalDateTime) row[1]);
+                BigDecimal amount = (BigDecimal) row[2];
+                for (RevenueRollup.Granularity unit : RevenueRollup.Granularity.values()) {
+                    buckets.merge(new RevenueRollup.Key(unit, bucketStart(createdAt, unit)), amount, BigDecimal::add);
+                }
+                afterId = (Integer) row[0];
+            }
+            buckets.forEach((key, amount) -> revenueRollupRepository.addRevenue(
+                    key.getGranularity().name(), key.getBucketStart(), amount));
+        } while (rows.size() == chunkSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (revenueRollupRepository.count() == 0
+                && orderRepository.countByStatusIn(DashboardAggregateService.REVENUE_STATUSES) > 0) {
+            rebuild(DashboardAggregateService.REVENUE_STATUSES);
+        }
+    }
+
+    private Map<String, BigDecimal> getRevenue(ZonedDateTime start, ZonedDateTime end,
+            RevenueRollup.Granularity unit, ZoneId zoneId) {
+        Map<String, BigDecimal> revenue = new TreeMap<>();
+
+        if (unit != RevenueRollup.Granularity.HOUR && zoneId.equals(businessZone)) {
+            // Buckets already follow the business calendar
+            LocalDateTime from = truncate(start.toLocalDateTime(), unit);
+            for (RevenueRollup bucket : revenueRollupRepository.findRange(unit, from, end.toLocalDateTime())) {
+                put(revenue, format(bucket.getBucketStart(), unit), bucket.getRevenue());
+            }
+            return revenue;
+        }
+
+        // Regroup UTC hours into the requested zone
+        LocalDateTime from = start.toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = end.toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime();
+        List<RevenueRollup> hours = revenueRollupRepository.findRange(RevenueRollup.Granularity.HOUR, from, to);
+        for (RevenueRollup bucket : hours) {
+            LocalDateTime local = bucket.getBucketStart().atOffset(ZoneOffset.UTC)
+                    .atZoneSameInstant(zoneId).toLocalDateTime();
+            put(revenue, format(truncate(local, unit), unit), bucket.getRevenue());
+        }
+        return revenue;
+    }
+
+    private void put(Map<String, BigDecimal> revenue, String key, BigDecimal amount) {
+        BigDecimal total = revenue.merge(key, amount, BigDecimal::add);
+        // Buckets whose orders were all cancelled again are left out, like days without orders
+        if (total.signum() == 0) {
+            revenue.remove(key);
+        }
+    }
+
+    private void addToBuckets(Instant createdAt, BigDecimal amount) {
+        for (RevenueRollup.Granularity unit : RevenueRollup.Granularity.values()) {
+            revenueRollupRepository.addRevenue(unit.name(), bucketStart(createdAt, unit), amount);
+        }
+    }
+
+    private LocalDateTime bucketStart(Instant instant, RevenueRollup.Granularity unit) {
+        if (unit == RevenueRollup.Granularity.HOUR) {
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+        }
+        return truncate(LocalDateTime.ofInstant(instant, businessZone), unit);
+    }
+
+    private LocalDateTime truncate(LocalDateTime time, RevenueRollup.Granularity unit) {
+        switch (unit) {
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case MONTH:
+                return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            default:
+                return time.toLocalDate().atStartOfDay();
+        }
+    }
+
+    private String format(LocalDateTime bucketStart, RevenueRollup.Granularity unit) {
+        switch (unit) {
+            case HOUR:
+                return HOUR_KEY.format(bucketStart);
+            case MONTH:
+                return MONTH_KEY.format(bucketStart);
+            default:
+                return DAY_KEY.format(bucketStart);
+        }
+    }
+
+    // Order timestamps are stored as local time of the application server
+    private Instant toInstant(LocalDateTime createdAt) {
+        return createdAt.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private ZoneId parseZone(String zone) {
+        if (zone == null || zone.isBlank()) {
+            return businessZone;
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new RuntimeException("Invalid zone: " + zone);
+        }
+    }
+
+    // Accepts yyyy-MM-dd or yyyy-MM-ddTHH:mm[:ss]; a date-only 'to' includes that whole day
+    private ZonedDateTime parseBound(String name, String value, ZoneId zoneId, boolean upper) {
+        if (value == null || value.isBlank()) {
+            throw new RuntimeException("'" + name + "' is required");
+        }
+        try {
+            if (value.contains("T")) {
+                return LocalDateTime.parse(value).atZone(zoneId);
+            }
+            LocalDate date = LocalDate.parse(value);
+            return (upper ? date.plusDays(1) : date).atStartOfDay(zoneId);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.StockAvailabilityDTO;
+import com.husc.productmanagement.entity.StockReservation;
+import com.husc.productmanagement.event.ProductChangedEvent;
+import com.husc.productmanagement.event.StockChangedEvent;
+import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.repository.StockReservationRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Ledger of temporary stock holds for carts and checkouts. Holds live in memory: each
+ * product keeps its committed quantity and the sum of its holds, and a hold only grows
+ * through a CAS on that sum when quantity - held covers it, so reserving takes no row
+ * locks and available-to-sell is a subtraction. Holds expire after a TTL and are swept
+ * periodically; the holds changed since the last checkpoint are upserted to
+ * stock_reservations and the ones gone since are deleted, and the rows are restored on
+ * startup. Holds are local to one instance, whose rows are those of its order.code.node-id.
+ */
+@Service
+public class StockReservationService {
+
+    private static final String UPSERT_SQL = "INSERT INTO stock_reservations " +
+            "(node_id, owner, product_id, quantity, expires_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), expires_at = VALUES(expires_at)";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM stock_reservations WHERE node_id = ? AND owner = ? AND product_id = ?";
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int nodeId;
+    private final Duration cartTtl;
+    private final Duration checkoutTtl;
+
+    private final Map<Integer, ProductStock> stocks = new ConcurrentHashMap<>();
+    private final Map<HoldKey, Hold> holds = new ConcurrentHashMap<>();
+    // Serializes quantity loads so a stale read can never overwrite a newer one
+    private final ReentrantLock loadLock = new ReentrantLock();
+    // Holds as the last checkpoint wrote them; a Hold is immutable, so an unchanged hold is the same object
+    private final Map<HoldKey, Hold> checkpointed = new HashMap<>();
+    // Guards checkpointed; held across the writes so the scheduled and the shutdown checkpoint never interleave
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    public StockReservationService(ProductRepository productRepository,
+            StockReservationRepository reservationRepository, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${order.code.node-id:0}") int nodeId,
+            @Value("${stock.reservation.cart-ttl:15m}") Duration cartTtl,
+            @Value("${stock.reservation.checkout-ttl:10m}") Duration checkoutTtl) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeId = nodeId;
+        this.cartTtl = cartTtl;
+        this.checkoutTtl = checkoutTtl;
+    }
+
+    public static String cartOwner(Integer userId) {
+        return "user:" + userId;
+    }
+
+    public static String orderOwner(String orderCode) {
+        return "order:" + orderCode;
+    }
+
+    /**
+     * Sets the cart hold of a user on a product to the cart quantity and restarts its TTL.
+     * Callers take the hold before changing the cart, so a refused hold leaves both as they were.
+     *
+     * @return false if the increase is not available to sell
+     */
+    public boolean holdForCart(Integer userId, Integer productId, int quantity) {
+        long expiresAt = System.currentTimeMillis() + cartTtl.toMillis();
+        return update(new HoldKey(cartOwner(userId), productId), current -> quantity, expiresAt);
+    }
+
+    public void release(String owner, Integer productId) {
+        update(new HoldKey(owner, productId), current -> 0, 0);
+    }
+
+    public void releaseAll(String owner) {
+        for (HoldKey key : new ArrayList<>(holds.keySet())) {
+            if (key.owner.equals(owner)) {
+                release(owner, key.productId);
+            }
+        }
+    }
+
+    // Checkout start: keeps every hold of the owner for at least the checkout TTL
+    public void extendForCheckout(String owner) {
+        long expiresAt = System.currentTimeMillis() + checkoutTtl.toMillis();
+        for (Map.Entry<HoldKey, Hold> entry : holds.entrySet()) {
+            if (entry.getKey().owner.equals(owner)) {
+                holds.computeIfPresent(entry.getKey(), (key, hold) ->
+                        new Hold(hold.quantity, Math.max(hold.expiresAt, expiresAt)));
+            }
+        }
+    }
+
+    // Committed quantity of the product as last loaded from the database
+    public int getQuantity(Integer productId) {
+        return stock(productId).quantity;
+    }
+
+    public int getAvailable(Integer productId) {
+        return stock(productId).available();
+    }
+
+    public StockAvailabilityDTO getAvailability(Integer productId) {
+        ProductStock stock = stock(productId);
+        int quantity = stock.quantity;
+        int reserved = stock.held.get();
+        return new StockAvailabilityDTO(productId, quantity, reserved, Math.max(quantity - reserved, 0));
+    }
+
+    /**
+     * Makes sure the owner holds at least the given quantities, topping holds up from the
+     * available stock. Must run inside the order transaction: on commit the holds are
+     * consumed by the ordered quantities, on rollback the top-ups are given back.
+     *
+     * @return ids of the products that could not be covered; nothing is held in that case
+     */
+    public List<Integer> claimForOrder(String owner, Map<Integer, Integer> amounts) {
+        long expiresAt = System.currentTimeMillis() + checkoutTtl.toMillis();
+        Map<Integer, Integer> added = new LinkedHashMap<>();
+        List<Integer> failed = new ArrayList<>();
+
+        for (Map.Entry<Integer, Integer> entry : amounts.entrySet()) {
+            HoldKey key = new HoldKey(owner, entry.getKey());
+            int required = entry.getValue();
+            if (heldBy(key) >= required) {
+                continue;
+            }
+            int[] topUp = { 0 };
+            if (update(key, current -> {
+                topUp[0] = Math.max(required - current, 0);
+                return current + topUp[0];
+            }, expiresAt)) {
+                added.put(entry.getKey(), topUp[0]);
+            } else {
+                failed.add(entry.getKey());
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            giveBack(owner, added);
+            return failed;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        consume(owner, amounts);
+                    } else {
+                        giveBack(owner, added);
+                    }
+                }
+            });
+        } else {
+            consume(owner, amounts);
+        }
+        return failed;
+    }
+
+    // Quantities changed in the database, reload the committed values
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        reload(event.getProductIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            stocks.remove(event.getProductId());
+        } else {
+            reload(Set.of(event.getProductId()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:5000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        for (HoldKey key : new ArrayList<>(holds.keySet())) {
+            holds.computeIfPresent(key, (k, hold) -> {
+                if (hold.expiresAt > now) {
+                    return hold;
+                }
+                ProductStock stock = stocks.get(k.productId);
+                if (stock != null) {
+                    stock.held.addAndGet(-hold.quantity);
+                }
+                return null;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.checkpoint-interval-ms:30000}")
+    public void checkpoint() {
+        checkpointLock.lock();
+        try {
+            Map<HoldKey, Hold> snapshot = new HashMap<>(holds);
+            List<Object[]> upserts = new ArrayList<>();
+            snapshot.forEach((key, hold) -> {
+                if (checkpointed.get(key) != hold) {
+                    upserts.add(new Object[] { nodeId, key.owner, key.productId, hold.quantity,
+                            Timestamp.valueOf(toLocalDateTime(hold.expiresAt)) });
+                }
+            });
+            List<Object[]> deletes = checkpointed.keySet().stream()
+                    .filter(key -> !snapshot.containsKey(key))
+                    .map(key -> new Object[] { nodeId, key.owner, key.productId })
+                    .collect(Collectors.toList());
+            if (upserts.isEmpty() && deletes.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!upserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+                }
+                if (!deletes.isEmpty()) {
+                    jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+                }
+            });
+            // Only after the commit, so a failed checkpoint is written again by the next one
+            checkpointed.clear();
+            checkpointed.putAll(snapshot);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long now = System.currentTimeMillis();
+        checkpointLock.lock();
+        try {
+            for (StockReservation reservation : reservationRepository.findByNodeId(nodeId)) {
+                long expiresAt = reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                HoldKey key = new HoldKey(reservation.getOwner(), reservation.getProductId());
+                if (expiresAt <= now) {
+                    // Deleted by the next checkpoint
+                    checkpointed.put(key, new Hold(reservation.getQuantity(), expiresAt));
+                    continue;
+                }
+                ProductStock stock = stock(reservation.getProductId());
+                // Restored holds were granted before the restart, so they are not re-checked against stock
+                Hold restored = holds.compute(key, (k, existing) -> {
+                    stock.held.addAndGet(reservation.getQuantity() - quantityOf(existing));
+                    return new Hold(reservation.getQuantity(), expiresAt);
+                });
+                checkpointed.put(key, restored);
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    private void consume(String owner, Map<Integer, Integer> amounts) {
+        // Reload first: for a moment the ordered stock counts twice, never zero times
+        reload(amounts.keySet());
+        amounts.forEach((productId, amount) ->
+                update(new HoldKey(owner, productId), current -> current - amount, 0));
+    }
+
+    private void giveBack(String owner, Map<Integer, Integer> added) {
+        added.forEach((productId, amount) ->
+                update(new HoldKey(owner, productId), current -> current - amount, 0));
+    }
+
+    /**
+     * Moves a hold to target(current quantity). Growing a hold checks availability,
+     * shrinking always succeeds and keeps the expiry when expiresAt is 0.
+     */
+    private boolean update(HoldKey key, IntUnaryOperator target, long expiresAt) {
+        ProductStock stock = stock(key.productId);
+        boolean[] applied = { true };
+        holds.compute(key, (k, existing) -> {
+            int current = quantityOf(existing);
+            int quantity = Math.max(target.applyAsInt(current), 0);
+            if (!stock.reserve(quantity - current)) {
+                applied[0] = false;
+                return existing;
+            }
+            if (quantity == 0) {
+                return null;
+            }
+            if (expiresAt > 0) {
+                return new Hold(quantity, expiresAt);
+            }
+            // Nothing to keep the expiry of, e.g. the hold was swept meanwhile
+            return new Hold(quantity, existing != null ? existing.expiresAt
+                    : System.currentTimeMillis() + cartTtl.toMillis());
+        });
+        return applied[0];
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private int heldBy(HoldKey key) {
+        return quantityOf(holds.get(key));
+    }
+
+    private static int quantityOf(Hold hold) {
+        return hold != null ? hold.quantity : 0;
+    }
+
+    private ProductStock stock(Integer productId) {
+        ProductStock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        loadLock.lock();
+        try {
+            stock = stocks.get(productId);
+            if (stock == null) {
+                int quantity = productRepository.findQuantities(Set.of(productId)).stream()
+                        .map(row -> (Integer) row[1])
+                        .findFirst()
+                        .orElse(0);
+                stock = new ProductStock(quantity);
+                stocks.put(productId, stock);
+            }
+            return stock;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void reload(Collection<Integer> productIds) {
+        loadLock.lock();
+        try {
+            List<Integer> loaded = productIds.stream()
+                    .filter(stocks::containsKey)
+                    .collect(Collectors.toList());
+            if (loaded.isEmpty()) {
+                return;
+            }
+            for (Object[] row : productRepository.findQuantities(loaded)) {
+                ProductStock stock = stocks.get((Integer) row[0]);
+                if (stock != null) {
+                    stock.quantity = (Integer) row[1];
+                }
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private static class ProductStock {
+        private volatile int quantity;
+        private final AtomicInteger held = new AtomicInteger();
+
+        ProductStock(int quantity) {
+            this.quantity = quantity;
+        }
+
+        int available() {
+            return Math.max(quantity - held.get(), 0);
+        }
+
+        // Adds delta to the held total; an increase only applies if it fits in quantity - held
+        boolean reserve(int delta) {
+            if (delta <= 0) {
+                held.addAndGet(delta);
+                return true;
+            }
+            while (true) {
+                int current = held.get();
+                if (quantity - current < delta) {
+                    return false;
+                }
+                if (held.compareAndSet(current, current + delta)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static class Hold {
+        private final int quantity;
+        private final long expiresAt;
+
+        Hold(int quantity, long expiresAt) {
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class HoldKey {
+        private final String owner;
+        private final Integer productId;
+
+        HoldKey(String owner, Integer productId) {
+            this.owner = owner;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HoldKey)) {
+                return false;
+            }
+            HoldKey other = (HoldKey) o;
+            return owner.equals(other.owner) && productId.equals(other.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(owner, productId);
+        }
+    }
+}
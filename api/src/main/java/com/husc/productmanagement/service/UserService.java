@@ -1,22 +1,35 @@
 package com.husc.productmanagement.service;
 
+import com.husc.productmanagement.dto.ChangePasswordRequest;
 import com.husc.productmanagement.dto.UserDTO;
 import com.husc.productmanagement.entity.User;
 import com.husc.productmanagement.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    // Runs the writes that follow a hash, as in AuthService, so they do not hold a hashing thread
+    private final Executor taskExecutor;
+
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+            TransactionTemplate transactionTemplate, @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+    }
 
     @Transactional(readOnly = true)
     public List<UserDTO> getAllUsers() {
@@ -39,8 +52,8 @@ public class UserService {
         return convertToDTO(user);
     }
 
-    @Transactional
-    public UserDTO createUser(UserDTO userDTO) {
+    // role is only taken from the DTO when an admin creates the user; the password is hashed on the hashing pool
+    public CompletableFuture<UserDTO> createUser(UserDTO userDTO, boolean admin) {
         if (userRepository.existsByEmail(userDTO.getEmail())) {
             throw new RuntimeException("Email already exists: " + userDTO.getEmail());
         }
@@ -48,22 +61,39 @@ public class UserService {
             throw new RuntimeException("Username already exists: " + userDTO.getUsername());
         }
 
+        return passwordHasher.encode(userDTO.getPassword())
+                .thenApplyAsync(encodedPassword -> transactionTemplate.execute(
+                        status -> insertUser(userDTO, admin, encodedPassword)), taskExecutor);
+    }
+
+    private UserDTO insertUser(UserDTO userDTO, boolean admin, String encodedPassword) {
         User user = new User();
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail());
         user.setUsername(userDTO.getUsername());
         user.setPhone(userDTO.getPhone());
         user.setAddress(userDTO.getAddress());
-        user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
-        user.setRole(userDTO.getRole() != null ? User.Role.fromValue(userDTO.getRole()) : User.Role.USER);
+        user.setPassword(encodedPassword);
+        user.setRole(admin && userDTO.getRole() != null ? User.Role.fromValue(userDTO.getRole()) : User.Role.USER);
         user.setStatus(User.Status.ACTIVE);
 
         User savedUser = userRepository.save(user);
         return convertToDTO(savedUser);
     }
 
-    @Transactional
-    public UserDTO updateUser(Integer id, UserDTO userDTO) {
+    // role and status are only changed by admins, users updating themselves cannot set them.
+    // A new password is hashed on the hashing pool before the update runs
+    public CompletableFuture<UserDTO> updateUser(Integer id, UserDTO userDTO, boolean admin) {
+        if (userDTO.getPassword() == null || userDTO.getPassword().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    transactionTemplate.execute(status -> applyUpdate(id, userDTO, admin, null)));
+        }
+        return passwordHasher.encode(userDTO.getPassword())
+                .thenApplyAsync(encodedPassword -> transactionTemplate.execute(
+                        status -> applyUpdate(id, userDTO, admin, encodedPassword)), taskExecutor);
+    }
+
+    private UserDTO applyUpdate(Integer id, UserDTO userDTO, boolean admin, String encodedPassword) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
@@ -88,20 +118,13 @@ public class UserService {
         if (userDTO.getAddress() != null) {
             user.setAddress(userDTO.getAddress());
         }
-        if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+        if (encodedPassword != null) {
+            user.setPassword(encodedPassword);
         }
-        // Only allow updating role/status if explicitly provided and typically for
-        // admins
-        // But per request "keep user, status unchanged", we might just skip them or
-        // trust the input.
-        // I will keep existing logic but use fromValue which is safer
-        if (userDTO.getRole() != null) {
+        if (admin && userDTO.getRole() != null) {
             user.setRole(User.Role.fromValue(userDTO.getRole()));
         }
-        // Status typically shouldn't be updated loosely, but keeping existing logic
-        // structure
-        if (userDTO.getStatus() != null) {
+        if (admin && userDTO.getStatus() != null) {
             user.setStatus(User.Status.fromValue(userDTO.getStatus()));
         }
 
@@ -117,17 +140,28 @@ public class UserService {
         userRepository.deleteById(id);
     }
 
-    @Transactional
-    public void changePassword(Integer userId, com.husc.productmanagement.dto.ChangePasswordRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            throw new RuntimeException("Incorrect old password");
-        }
-
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+    // Both the check and the new hash run on the hashing pool
+    public CompletableFuture<Void> changePassword(Integer userId, ChangePasswordRequest request) {
+        String checkedHash = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId))
+                .getPassword();
+
+        return passwordHasher.matches(request.getOldPassword(), checkedHash)
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        throw new RuntimeException("Incorrect old password");
+                    }
+                    return passwordHasher.encode(request.getNewPassword());
+                })
+                .thenAcceptAsync(encodedPassword -> transactionTemplate.executeWithoutResult(status -> {
+                    User user = userRepository.findById(userId)
+                            .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+                    // Changed while this request was hashing: the old password was checked against a stale hash
+                    if (!user.getPassword().equals(checkedHash)) {
+                        throw new RuntimeException("Incorrect old password");
+                    }
+                    user.setPassword(encodedPassword);
+                }), taskExecutor);
     }
 
     private UserDTO convertToDTO(User user) {
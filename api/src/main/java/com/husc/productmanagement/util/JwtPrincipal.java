@@ -0,0 +1,32 @@
+package com.husc.productmanagement.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified JWT.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class JwtPrincipal {
+
+    private final String email;
+
+    private final Integer userId;
+
+    private final String role;
+
+    private final Instant expiresAt;
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
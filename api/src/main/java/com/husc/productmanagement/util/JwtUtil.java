@@ -1,27 +1,50 @@
 package com.husc.productmanagement.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Issues and verifies the HMAC-signed JWTs. The key and the parser are built once;
+ * verified tokens are remembered in a small bounded cache keyed by their SHA-256, so a
+ * client repeating the same token pays for the signature check only once per cache TTL.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Long expiration;
+    private final Cache<String, JwtPrincipal> verified;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
-
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+            @Value("${jwt.expiration}") Long expiration,
+            @Value("${jwt.cache.max-size:10000}") long cacheSize,
+            @Value("${jwt.cache.ttl:5m}") Duration cacheTtl) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expiration = expiration;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
     }
 
     public String generateToken(String email, Integer userId, String role) {
@@ -34,40 +57,71 @@ public class JwtUtil {
                 .subject(email)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Verifies the token once and returns its principal, or empty if it is invalid or expired.
+     */
+    public Optional<JwtPrincipal> validateAndExtract(String token) {
+        try {
+            return Optional.of(extract(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public String getEmailFromToken(String token) {
-        return getClaims(token).getSubject();
+        return extract(token).getEmail();
     }
 
     public Integer getUserIdFromToken(String token) {
-        return getClaims(token).get("userId", Integer.class);
+        return extract(token).getUserId();
     }
 
     public String getRoleFromToken(String token) {
-        return getClaims(token).get("role", String.class);
+        return extract(token).getRole();
     }
 
     public boolean validateToken(String token) {
-        try {
-            getClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+        return validateAndExtract(token).isPresent();
+    }
+
+    private JwtPrincipal extract(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT is empty");
+        }
+        String key = hash(token);
+        JwtPrincipal principal = verified.getIfPresent(key);
+        if (principal == null) {
+            principal = parse(token);
+            verified.put(key, principal);
+        }
+        // A cached token can expire while it sits in the cache
+        if (principal.isExpired()) {
+            verified.invalidate(key);
+            throw new JwtException("JWT expired at " + principal.getExpiresAt());
         }
+        return principal;
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private JwtPrincipal parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT has no expiration");
+        }
+        return new JwtPrincipal(claims.getSubject(), claims.get("userId", Integer.class),
+                claims.get("role", String.class), claims.getExpiration().toInstant());
     }
 
-    private boolean isTokenExpired(String token) {
-        return getClaims(token).getExpiration().before(new Date());
+    // The cache is keyed by a digest so raw bearer tokens are not kept on the heap
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
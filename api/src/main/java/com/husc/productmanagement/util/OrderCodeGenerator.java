@@ -0,0 +1,9 @@
+package com.husc.productmanagement.util;
+
+/**
+ * Produces unique order codes for the order_code column.
+ */
+public interface OrderCodeGenerator {
+
+    String nextCode();
+}
@@ -0,0 +1,210 @@
+package com.husc.productmanagement;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.service.CategoryService;
+import com.husc.productmanagement.service.ProductService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test comparing request handling on the 200 Tomcat platform threads with virtual
+ * threads (spring.threads.virtual.enabled, Java 21 only), each with datasource.fair-acquire
+ * off and on: concurrent clients send a mix of checkouts and product reads, and throughput
+ * and p50/p99 latency are printed per mode. Virtual runs record jdk.VirtualThreadPinned
+ * with JFR and fail if a carrier was pinned for longer than PINNED_THRESHOLD.
+ * Runs on the test profile (H2) by default; pass Spring arguments to point it at MySQL,
+ * where requests block on real I/O and the modes differ most. -Dload.clients and
+ * -Dload.requests change the load.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+public class ExecutionModeLoadBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 8_000);
+    private static final int WARMUP_REQUESTS = REQUESTS / 8;
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+    // Spread over several products so the run is not bound by a single row lock
+    private static final int PRODUCTS = 50;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    public static void main(String[] args) throws Exception {
+        ExecutionModeLoadBenchmark benchmark = new ExecutionModeLoadBenchmark();
+        List<String> pinned = new ArrayList<>();
+        for (boolean fairAcquire : new boolean[] { false, true }) {
+            benchmark.run(false, fairAcquire, args);
+            if (Runtime.version().feature() >= 21) {
+                pinned.addAll(benchmark.run(true, fairAcquire, args));
+            } else {
+                System.out.printf("%-13s skipped, virtual threads need Java 21 (running %s)%n",
+                        mode(true, fairAcquire), Runtime.version());
+            }
+        }
+        if (!pinned.isEmpty()) {
+            throw new IllegalStateException("Virtual threads pinned their carrier " + pinned.size()
+                    + " times for over " + PINNED_THRESHOLD.toMillis() + " ms:\n  " + String.join("\n  ", pinned));
+        }
+    }
+
+    private List<String> run(boolean virtualThreads, boolean fairAcquire, String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductManagementApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.devtools.restart.enabled=false",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "datasource.fair-acquire=" + fairAcquire)
+                .run(args);
+             Recording pinning = new Recording()) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            List<Integer> productIds = seedProducts(context);
+            String base = "http://localhost:" + port + "/api";
+
+            load(base, productIds, WARMUP_REQUESTS);
+            pinning.enable("jdk.VirtualThreadPinned").withThreshold(PINNED_THRESHOLD).withStackTrace();
+            pinning.start();
+            long start = System.nanoTime();
+            Result result = load(base, productIds, REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pinning.stop();
+            List<String> pinned = pinnedAt(pinning);
+
+            long[] latencies = result.latencies;
+            Arrays.sort(latencies);
+            System.out.printf("%-13s %d requests, %d clients: %.0f req/s, p50 %.2f ms, p99 %.2f ms, errors %d, "
+                    + "pinned %d%n", mode(virtualThreads, fairAcquire), REQUESTS, CLIENTS, REQUESTS / seconds,
+                    latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6,
+                    result.errors.get(), pinned.size());
+            return pinned;
+        }
+    }
+
+    private static String mode(boolean virtualThreads, boolean fairAcquire) {
+        return (virtualThreads ? "virtual" : "platform") + (fairAcquire ? "+fair" : "");
+    }
+
+    // jdk.VirtualThreadPinned only exists on Java 21, so on 17 the recording is simply empty
+    private static List<String> pinnedAt(Recording recording) throws IOException {
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try {
+            recording.dump(file);
+            List<String> pinned = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                pinned.add(event.getDuration().toMillis() + " ms at " + applicationFrame(event));
+            }
+            return pinned;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // The innermost frame in this application's code, else the innermost frame
+    private static String applicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        RecordedFrame frame = frames.stream()
+                .filter(f -> f.getMethod().getType().getName().startsWith("com.husc."))
+                .findFirst()
+                .orElse(frames.get(0));
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    // Every fourth request is a checkout, the others read a product
+    private Result load(String base, List<Integer> productIds, int requests) throws Exception {
+        List<HttpRequest> checkouts = new ArrayList<>();
+        List<HttpRequest> reads = new ArrayList<>();
+        for (Integer productId : productIds) {
+            String order = "{\"customerName\":\"Load\",\"email\":\"load@example.com\",\"phone\":\"0900000000\","
+                    + "\"address\":\"Hue\",\"paymentMethod\":\"cod\",\"items\":[{\"productId\":" + productId
+                    + ",\"quantity\":1}]}";
+            checkouts.add(HttpRequest.newBuilder(URI.create(base + "/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(order))
+                    .build());
+            reads.add(HttpRequest.newBuilder(URI.create(base + "/products/" + productId)).GET().build());
+        }
+
+        Result result = new Result(requests);
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                tasks.add(() -> {
+                    int n;
+                    while ((n = next.getAndIncrement()) < requests) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(n % 4 == 0
+                                    ? checkouts.get(n / 4 % checkouts.size()) : reads.get(n % reads.size()),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 300) {
+                                result.errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            result.errors.incrementAndGet();
+                        }
+                        result.latencies[n] = System.nanoTime() - start;
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : clients.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        return result;
+    }
+
+    private List<Integer> seedProducts(ConfigurableApplicationContext context) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Load " + System.nanoTime());
+        Integer categoryId = context.getBean(CategoryService.class).createCategory(category).getId();
+        List<Integer> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Load product " + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(1_000_000);
+            product.setCategoryId(categoryId);
+            productIds.add(context.getBean(ProductService.class).createProduct(product).getId());
+        }
+        return productIds;
+    }
+
+    private static class Result {
+        private final long[] latencies;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        Result(int requests) {
+            this.latencies = new long[requests];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.husc.productmanagement.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FairAcquireDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+
+    // The id generator's second connection must not queue behind callers waiting for the first one's permit
+    @Test
+    void nestedAcquireBypassesTheQueue() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        FairAcquireDataSource dataSource = new FairAcquireDataSource(pool, 1, 1, 500);
+
+        Connection outer = dataSource.getConnection();
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<Connection> queued = CompletableFuture.supplyAsync(() -> {
+            waiting.countDown();
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waiting.await();
+        Thread.sleep(50);
+
+        Connection nested = dataSource.getConnection();
+        nested.close();
+        assertThat(queued).isNotDone();
+
+        outer.close();
+        queued.get(1, TimeUnit.SECONDS).close();
+    }
+
+    // A thread with a leaked or miscounted connection can only draw on the reserve, not past the pool
+    @Test
+    void nestedAcquiresAreBoundedByTheReserve() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        FairAcquireDataSource dataSource = new FairAcquireDataSource(pool, 1, 1, 100);
+
+        Connection outer = dataSource.getConnection();
+        Connection nested = dataSource.getConnection();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        nested.close();
+        dataSource.getConnection().close();
+        outer.close();
+    }
+
+    // Handed to another thread and closed there: the opener is no longer nested and queues again
+    @Test
+    void connectionClosedOnAnotherThreadEndsNesting() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        FairAcquireDataSource dataSource = new FairAcquireDataSource(pool, 1, 1, 100);
+        ExecutorService opener = Executors.newSingleThreadExecutor();
+        try {
+            Connection handedOff = opener.submit(() -> dataSource.getConnection()).get(1, TimeUnit.SECONDS);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    handedOff.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).get(1, TimeUnit.SECONDS);
+
+            Connection next = opener.submit(() -> dataSource.getConnection()).get(1, TimeUnit.SECONDS);
+            // next holds the only fair permit, so a separate caller times out
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                    assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class));
+            other.get(1, TimeUnit.SECONDS);
+            next.close();
+        } finally {
+            opener.shutdown();
+        }
+    }
+
+    @Test
+    void separateCallersStillWaitForAPermit() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        FairAcquireDataSource dataSource = new FairAcquireDataSource(pool, 1, 1, 100);
+
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class));
+        other.get(1, TimeUnit.SECONDS);
+
+        // Closing twice gives back one permit
+        held.close();
+        held.close();
+        Connection next = dataSource.getConnection();
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() ->
+                assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class));
+        third.get(1, TimeUnit.SECONDS);
+        next.close();
+    }
+
+    @Test
+    void failedAcquireGivesThePermitBack() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool down"))
+                .thenAnswer(invocation -> mock(Connection.class));
+        FairAcquireDataSource dataSource = new FairAcquireDataSource(pool, 1, 1, 100);
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool down");
+        dataSource.getConnection().close();
+    }
+}
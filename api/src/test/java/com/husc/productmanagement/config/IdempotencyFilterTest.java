@@ -0,0 +1,192 @@
+package com.husc.productmanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import com.husc.productmanagement.service.CategoryService;
+import com.husc.productmanagement.service.IdempotencyStore;
+import com.husc.productmanagement.service.ProductService;
+import com.husc.productmanagement.util.JwtUtil;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Integer productId;
+    private String order;
+
+    @BeforeEach
+    void setUp() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Idempotency " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Idempotent product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(100);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        productId = productService.createProduct(product).getId();
+        order = orderFor("Guest");
+    }
+
+    @Test
+    void authenticatedRetriesAreReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+        User user = createUser();
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), "USER");
+
+        MvcResult first = mockMvc.perform(placeOrder(key).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        MvcResult retry = mockMvc.perform(placeOrder(key).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+
+        assertThat(retry.getResponse().getContentAsByteArray()).isEqualTo(first.getResponse().getContentAsByteArray());
+    }
+
+    // Guest checkout retried by a flaky client: one order and one stock decrement
+    @Test
+    void guestRetriesAreReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        MvcResult first = mockMvc.perform(placeOrder(key))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        MvcResult retry = mockMvc.perform(placeOrder(key))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+
+        assertThat(retry.getResponse().getContentAsByteArray()).isEqualTo(first.getResponse().getContentAsByteArray());
+        assertThat(productService.getProductById(productId).getQuantity()).isEqualTo(99);
+    }
+
+    // Two guests picking the same key must not receive each other's order
+    @Test
+    void guestsWithDifferentOrdersDoNotShareAKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        MvcResult first = mockMvc.perform(placeOrder(key))
+                .andExpect(status().isCreated())
+                .andReturn();
+        MvcResult second = mockMvc.perform(placeOrder(key).content(orderFor("Another guest")))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+
+        assertThat(second.getResponse().getContentAsString()).isNotEqualTo(first.getResponse().getContentAsString());
+        assertThat(productService.getProductById(productId).getQuantity()).isEqualTo(98);
+    }
+
+    // Non-blocking readers get the buffered body through the read listener
+    @Test
+    void bufferedBodyIsReadableThroughAReadListener() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyStore, objectMapper, Set.of("/orders"));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.addHeader(IdempotencyFilter.HEADER, UUID.randomUUID().toString());
+        request.setContent(order.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        StringBuilder events = new StringBuilder();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            ServletInputStream input = servletRequest.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.append("data;");
+                    read.write(input.readAllBytes());
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.append("done;");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.append("error;");
+                }
+            });
+        });
+
+        assertThat(events).hasToString("data;done;");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(order);
+    }
+
+    private MockHttpServletRequestBuilder placeOrder(String key) {
+        return post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyFilter.HEADER, key)
+                .content(order);
+    }
+
+    private String orderFor(String customerName) {
+        return "{\"customerName\":\"" + customerName + "\",\"email\":\"guest@example.com\",\"phone\":\"0900000000\","
+                + "\"address\":\"Hue\",\"paymentMethod\":\"cod\",\"items\":[{\"productId\":" + productId
+                + ",\"quantity\":1}]}";
+    }
+
+    private User createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Buyer");
+        user.setEmail("buyer" + suffix + "@example.com");
+        user.setUsername("buyer" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,92 @@
+package com.husc.productmanagement.config;
+
+import com.husc.productmanagement.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of JwtAuthenticationFilter, including the p0.99 percentile JMH
+ * reports for sample-time runs. cached is a client repeating its token; verified pays the
+ * signature check on every request. The budget is 20us at p99 for cached, which main
+ * enforces: it fails when the run is over budget.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "your-secret-key-change-this-in-production-minimum-256-bits";
+    private static final double P99_BUDGET_MICROS = 20;
+
+    @Param({ "cached", "verified" })
+    public String tokenCache;
+
+    private JwtAuthenticationFilter filter;
+    private String header;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = "cached".equals(tokenCache)
+                ? new JwtUtil(SECRET, 86_400_000L, 10_000, Duration.ofMinutes(5))
+                : new JwtUtil(SECRET, 86_400_000L, 0, Duration.ZERO);
+        filter = new JwtAuthenticationFilter(jwtUtil);
+        header = "Bearer " + jwtUtil.generateToken("user@example.com", 2, "USER");
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void authenticate(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader(HttpHeaders.AUTHORIZATION, header);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+        for (RunResult result : results) {
+            if ("cached".equals(result.getParams().getParam("tokenCache"))) {
+                double p99 = result.getPrimaryResult().getStatistics().getPercentile(99);
+                if (p99 >= P99_BUDGET_MICROS) {
+                    throw new IllegalStateException(String.format(
+                            "cached p99 is %.2fus, the budget is %.0fus", p99, P99_BUDGET_MICROS));
+                }
+            }
+        }
+    }
+}
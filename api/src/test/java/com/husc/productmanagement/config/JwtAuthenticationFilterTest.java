@@ -0,0 +1,61 @@
+package com.husc.productmanagement.config;
+
+import com.husc.productmanagement.util.JwtPrincipal;
+import com.husc.productmanagement.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "your-secret-key-change-this-in-production-minimum-256-bits";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 86_400_000L, 10_000, Duration.ofMinutes(5));
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromTheTokenClaims() throws Exception {
+        Authentication authentication = filter(request("bearer " + jwtUtil.generateToken("admin@example.com", 1, "ADMIN")));
+
+        assertThat(authentication.getPrincipal()).isInstanceOfSatisfying(JwtPrincipal.class, principal -> {
+            assertThat(principal.getUserId()).isEqualTo(1);
+            assertThat(principal.getEmail()).isEqualTo("admin@example.com");
+        });
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void leavesInvalidTokensAnonymous() throws Exception {
+        assertThat(filter(request(null))).isNull();
+        assertThat(filter(request("Basic dXNlcjpwYXNz"))).isNull();
+        assertThat(filter(request("Bearer not-a-jwt"))).isNull();
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+}
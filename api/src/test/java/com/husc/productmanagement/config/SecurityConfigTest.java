@@ -0,0 +1,189 @@
+package com.husc.productmanagement.config;
+
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import com.husc.productmanagement.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void ratingSummaryRebuildRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/ratings/rebuild-summaries"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(post("/ratings/rebuild-summaries")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(asAdmin(post("/ratings/rebuild-summaries")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void orderExportRequiresAdminAndUsesItsOwnTimeout() throws Exception {
+        mockMvc.perform(get("/orders/export"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(get("/orders/export")))
+                .andExpect(status().isForbidden());
+
+        MvcResult started = mockMvc.perform(asAdmin(get("/orders/export")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(content().string(startsWith("id,orderCode,")));
+    }
+
+    @Test
+    void lowStockStreamRequiresAdminAndEnds() throws Exception {
+        mockMvc.perform(get("/products/low-stock/stream"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(get("/products/low-stock/stream")))
+                .andExpect(status().isForbidden());
+
+        MvcResult started = mockMvc.perform(asAdmin(get("/products/low-stock/stream")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        started.getRequest().getAsyncContext().complete();
+    }
+
+    @Test
+    void orderStatusChangesRequireAdmin() throws Exception {
+        mockMvc.perform(patch("/orders/1/status").param("status", "shipped"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(patch("/orders/1/status").param("status", "shipped")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(asUser(patch("/orders/status")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void usersCannotEscalateTheirOwnRole() throws Exception {
+        User user = createUser();
+        String escalation = "{\"name\":\"Mallory\",\"username\":\"" + user.getUsername() + "\",\"email\":\""
+                + user.getEmail() + "\",\"role\":\"admin\",\"status\":\"inactive\"}";
+
+        mockMvc.perform(put("/users/" + user.getId()).contentType(MediaType.APPLICATION_JSON).content(escalation))
+                .andExpect(status().isUnauthorized());
+        MvcResult started = mockMvc.perform(as(user, put("/users/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content(escalation)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+        User updated = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Mallory");
+        assertThat(updated.getRole()).isEqualTo(User.Role.USER);
+        assertThat(updated.getStatus()).isEqualTo(User.Status.ACTIVE);
+
+        started = mockMvc.perform(asAdmin(put("/users/" + user.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content(escalation)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getRole()).isEqualTo(User.Role.ADMIN);
+    }
+
+    @Test
+    void usersOnlyReachTheirOwnAccount() throws Exception {
+        User user = createUser();
+        User other = createUser();
+
+        mockMvc.perform(get("/users/" + other.getId()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(as(user, get("/users/" + user.getId())))
+                .andExpect(status().isOk());
+        mockMvc.perform(as(user, get("/users/" + other.getId())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(as(user, put("/users/" + other.getId()).contentType(MediaType.APPLICATION_JSON).content("{}")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(as(user, put("/users/" + other.getId() + "/change-password")
+                        .contentType(MediaType.APPLICATION_JSON).content("{}")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(as(user, get("/users")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(as(user, delete("/users/" + other.getId())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(as(user, delete("/users/" + user.getId())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(asAdmin(get("/users")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void actuatorOnlyExposesHealthPublicly() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/caches"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(delete("/actuator/caches")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(asAdmin(get("/actuator/caches")))
+                .andExpect(status().isOk());
+    }
+
+    private MockHttpServletRequestBuilder as(User user, MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION,
+                "Bearer " + jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name()));
+    }
+
+    private User createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Member");
+        user.setEmail("member" + suffix + "@example.com");
+        user.setUsername("member" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user);
+    }
+
+    private MockHttpServletRequestBuilder asUser(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION,
+                "Bearer " + jwtUtil.generateToken("user@example.com", 2, "USER"));
+    }
+
+    private MockHttpServletRequestBuilder asAdmin(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION,
+                "Bearer " + jwtUtil.generateToken("admin@example.com", 1, "ADMIN"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.husc.productmanagement.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real server, since forwarded headers are resolved by Tomcat; the test client connects over loopback, a trusted proxy
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "auth.throttle.ip.max-attempts=2")
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void clientsBehindAProxyAreThrottledSeparately() {
+        assertThat(login("203.0.113.1", "first")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(login("203.0.113.1", "second")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(login("203.0.113.1", "third")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        assertThat(login("203.0.113.2", "fourth")).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private HttpStatus login(String clientIp, String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientIp);
+        String body = "{\"usernameOrEmail\":\"unknown-" + username + "\",\"password\":\"wrong-password\"}";
+        return HttpStatus.valueOf(restTemplate.postForEntity("/auth/login", new HttpEntity<>(body, headers), String.class)
+                .getStatusCode().value());
+    }
+}
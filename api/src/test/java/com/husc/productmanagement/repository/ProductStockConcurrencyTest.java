@@ -0,0 +1,190 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.OrderDTO;
+import com.husc.productmanagement.dto.OrderItemDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.service.CategoryService;
+import com.husc.productmanagement.service.OrderService;
+import com.husc.productmanagement.service.ProductService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many threads buying one hot product: stock must never go negative or lose an update
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int STOCK = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Integer categoryId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Hot SKU " + System.nanoTime());
+        categoryId = categoryService.createCategory(category).getId();
+    }
+
+    @Test
+    void conditionalDecrementNeverOversells() throws Exception {
+        Integer productId = createProduct(STOCK);
+
+        AtomicInteger sold = new AtomicInteger();
+        hammer(STOCK * 2, () -> {
+            boolean applied = transactionTemplate.execute(status -> productRepository.decrementStock(productId, 1) == 1);
+            if (applied) {
+                sold.incrementAndGet();
+            }
+            return applied;
+        });
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(quantity(productId)).isZero();
+    }
+
+    // The row lock is held for one statement instead of a SELECT ... FOR UPDATE round trip plus the UPDATE.
+    // Only the statements issued under the lock are compared here; throughput is ProductStockDecrementBenchmark's job
+    @Test
+    void conditionalDecrementHoldsTheRowForOneStatement() throws Exception {
+        Integer atomicId = createProduct(STOCK);
+        Integer lockedId = createProduct(STOCK);
+
+        statistics.clear();
+        hammer(STOCK, () -> transactionTemplate.execute(status -> productRepository.decrementStock(atomicId, 1) == 1));
+        long atomicStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        hammer(STOCK, () -> transactionTemplate.execute(status -> lockAndDecrement(lockedId)));
+        long lockedStatements = statistics.getPrepareStatementCount();
+
+        assertThat(quantity(atomicId)).isZero();
+        assertThat(quantity(lockedId)).isZero();
+        // Background jobs share the statistics, allow them a little slack
+        assertThat(atomicStatements).isLessThan(STOCK + STOCK / 10);
+        assertThat(lockedStatements).isGreaterThanOrEqualTo(2L * STOCK);
+    }
+
+    @Test
+    void concurrentCheckoutsSellExactlyTheStock() throws Exception {
+        int stock = 50;
+        Integer productId = createProduct(stock);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerName("Guest");
+        order.setEmail("guest@example.com");
+        order.setPhone("0900000000");
+        order.setAddress("Hue");
+        order.setPaymentMethod("cod");
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        order.setItems(List.of(item));
+
+        AtomicInteger placed = new AtomicInteger();
+        hammer(stock * 2, () -> {
+            try {
+                orderService.createOrder(order, null);
+                placed.incrementAndGet();
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+
+        assertThat(placed.get()).isEqualTo(stock);
+        assertThat(quantity(productId)).isZero();
+    }
+
+    // Read-check-write under a row lock, the approach the conditional UPDATE replaced
+    private boolean lockAndDecrement(Integer productId) {
+        Product product = entityManager.find(Product.class, productId, LockModeType.PESSIMISTIC_WRITE);
+        if (product.getQuantity() < 1) {
+            return false;
+        }
+        product.setQuantity(product.getQuantity() - 1);
+        return true;
+    }
+
+    // Runs the attempts on THREADS threads
+    private void hammer(int attempts, BooleanSupplier attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger remaining = new AtomicInteger(attempts);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    attempt.getAsBoolean();
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private Integer createProduct(int quantity) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Hot product " + System.nanoTime());
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(quantity);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private int quantity(Integer productId) {
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+}
@@ -0,0 +1,106 @@
+package com.husc.productmanagement.repository;
+
+import com.husc.productmanagement.ProductManagementApplication;
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.service.CategoryService;
+import com.husc.productmanagement.service.ProductService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrements per second on one hot product from 16 threads: the conditional UPDATE that
+ * checkouts use against the SELECT ... FOR UPDATE plus UPDATE it replaced. Runs on the
+ * test profile (H2); pass Spring arguments to the context to measure MySQL, where the
+ * extra round trip under the row lock costs the most.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ProductStockDecrementBenchmark {
+
+    // Enough that neither benchmark runs out of stock
+    private static final int STOCK = 1_000_000_000;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private Integer productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductManagementApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Benchmark");
+        ProductDTO product = new ProductDTO();
+        product.setName("Hot product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(STOCK);
+        product.setCategoryId(context.getBean(CategoryService.class).createCategory(category).getId());
+        productId = context.getBean(ProductService.class).createProduct(product).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean conditionalUpdate() {
+        return transactionTemplate.execute(status -> productRepository.decrementStock(productId, 1) == 1);
+    }
+
+    @Benchmark
+    public boolean selectForUpdate() {
+        return transactionTemplate.execute(status -> {
+            Product product = entityManager.find(Product.class, productId, LockModeType.PESSIMISTIC_WRITE);
+            if (product.getQuantity() < 1) {
+                return false;
+            }
+            product.setQuantity(product.getQuantity() - 1);
+            return true;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductStockDecrementBenchmark.class.getSimpleName()).build()).run();
+    }
+}
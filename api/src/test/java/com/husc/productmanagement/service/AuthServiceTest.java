@@ -0,0 +1,55 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.UserDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHasher passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 10);
+    private final ExecutorService taskExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "task-1"));
+    private final AuthService authService = new AuthService(userRepository, passwordHasher, null, null, taskExecutor);
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+        taskExecutor.shutdown();
+    }
+
+    // The hashing pool is sized to the CPUs; a slow insert must not hold one of its threads
+    @Test
+    void registerPersistsOffTheHashingPool() throws Exception {
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            User user = invocation.getArgument(0);
+            user.setId(1);
+            return user;
+        });
+        UserDTO user = new UserDTO();
+        user.setName("New user");
+        user.setEmail(" New@Example.com");
+        user.setUsername("NewUser");
+        user.setPassword("secret123");
+
+        UserDTO registered = authService.register(user).get(30, TimeUnit.SECONDS);
+
+        assertThat(registered.getId()).isEqualTo(1);
+        assertThat(registered.getEmail()).isEqualTo("new@example.com");
+        assertThat(savingThread.get()).isEqualTo("task-1");
+    }
+}
@@ -0,0 +1,177 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CartItemDTO;
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.CartItemRepository;
+import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A crash loses at most the edits made after the last flush: a checkout always reads its cart back from cart_items
+@SpringBootTest
+@ActiveProfiles("test")
+class CartStoreTest {
+
+    private static final int PRODUCTS = 4;
+
+    @Autowired
+    private CartItemService cartItemService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Integer> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Cart store " + System.nanoTime());
+        Integer categoryId = categoryService.createCategory(category).getId();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Cart product " + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(100_000);
+            product.setCategoryId(categoryId);
+            productIds.add(productService.createProduct(product).getId());
+        }
+    }
+
+    @Test
+    void checkoutSurvivesACrash() {
+        Integer userId = createUser();
+        cartItemService.addToCart(userId, productIds.get(0), 2);
+        cartItemService.addToCart(userId, productIds.get(1), 1);
+        cartItemService.updateQuantity(userId, productIds.get(0), 5);
+        cartItemService.addToCart(userId, productIds.get(2), 1);
+        cartItemService.removeFromCart(userId, productIds.get(1));
+
+        Map<Integer, Integer> checkout = quantities(cartItemService.startCheckout(userId));
+
+        assertThat(checkout).isEqualTo(Map.of(productIds.get(0), 5, productIds.get(2), 1));
+        assertThat(afterCrash(userId)).isEqualTo(checkout);
+    }
+
+    @Test
+    void concurrentEditsNeverLeaveACheckoutStale() throws Exception {
+        Integer userId = createUser();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<Future<?>> edits = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    edits.add(executor.submit(() -> {
+                        Integer productId = productIds.get(ThreadLocalRandom.current().nextInt(PRODUCTS));
+                        int quantity = ThreadLocalRandom.current().nextInt(-1, 6);
+                        if (quantity < 0) {
+                            cartItemService.removeFromCart(userId, productId);
+                        } else if (quantity == 0) {
+                            cartItemService.addToCart(userId, productId, 1);
+                        } else {
+                            cartItemService.updateQuantity(userId, productId, quantity);
+                        }
+                    }));
+                    if (i % 10 == 0) {
+                        edits.add(executor.submit(cartStore::flushAll));
+                    }
+                }
+                for (Future<?> edit : edits) {
+                    try {
+                        edit.get();
+                    } catch (Exception e) {
+                        // updateQuantity of a line another edit just removed
+                        assertThat(e.getCause()).hasMessage("Cart item not found");
+                    }
+                }
+
+                Map<Integer, Integer> checkout = quantities(cartItemService.startCheckout(userId));
+                assertThat(afterCrash(userId)).as("round %d", round).isEqualTo(checkout);
+                assertThat(quantities(cartItemService.getUserCart(userId))).isEqualTo(checkout);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void evictedCartsKeepTheirUnwrittenChanges() {
+        // One stripe of two carts: the third user evicts the first before any flush
+        CartStore small = new CartStore(cartItemRepository, productRepository, jdbcTemplate, transactionTemplate, 1, 2);
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Integer userId = createUser();
+            userIds.add(userId);
+            int quantity = i + 1;
+            small.apply(userId, cart -> cart.set(productIds.get(0), quantity));
+        }
+
+        int parked = small.apply(userIds.get(0), cart -> cart.quantityOf(productIds.get(0)));
+        assertThat(parked).isEqualTo(1);
+        small.flushAll();
+        for (int i = 0; i < userIds.size(); i++) {
+            assertThat(afterCrash(userIds.get(i))).isEqualTo(Map.of(productIds.get(0), i + 1));
+        }
+    }
+
+    // The cart as a new store, e.g. after a restart, loads it from cart_items
+    private Map<Integer, Integer> afterCrash(Integer userId) {
+        CartStore restarted = new CartStore(cartItemRepository, productRepository, jdbcTemplate, transactionTemplate, 1, 10);
+        return restarted.apply(userId, cart -> cart.getLines().stream()
+                .collect(Collectors.toMap(CartStore.Line::getProductId, CartStore.Line::getQuantity)));
+    }
+
+    private Map<Integer, Integer> quantities(List<CartItemDTO> items) {
+        return items.stream().collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity));
+    }
+
+    private Integer createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Shopper");
+        user.setEmail("shopper" + suffix + "@example.com");
+        user.setUsername("shopper" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user).getId();
+    }
+}
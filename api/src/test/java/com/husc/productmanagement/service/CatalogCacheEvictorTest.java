@@ -0,0 +1,74 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.config.CacheConfig;
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.OrderDTO;
+import com.husc.productmanagement.dto.OrderItemDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogCacheEvictorTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void stockChangesEvictOnlyWhenAProductSellsOutOrComesBack() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Evictor " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Limited edition");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(3);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        Integer productId = productService.createProduct(product).getId();
+        Cache activeProducts = cacheManager.getCache(CacheConfig.ACTIVE_PRODUCTS);
+
+        productService.getActiveProducts();
+        orderService.createOrder(order(productId, 2), null);
+        assertThat(activeProducts.get(SimpleKey.EMPTY)).as("still in stock").isNotNull();
+
+        OrderDTO last = orderService.createOrder(order(productId, 1), null);
+        assertThat(activeProducts.get(SimpleKey.EMPTY)).as("sold out").isNull();
+
+        productService.getActiveProducts();
+        orderService.cancelOrder(last.getId());
+        assertThat(activeProducts.get(SimpleKey.EMPTY)).as("back in stock").isNull();
+    }
+
+    private OrderDTO order(Integer productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerName("Guest");
+        order.setEmail("guest@example.com");
+        order.setPhone("0900000000");
+        order.setAddress("Hue");
+        order.setPaymentMethod("cod");
+        order.setItems(List.of(item));
+        return order;
+    }
+}
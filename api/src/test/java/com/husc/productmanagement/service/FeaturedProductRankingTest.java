@@ -0,0 +1,81 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.dto.ProductRatingDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FeaturedProductRankingTest {
+
+    @Autowired
+    private FeaturedProductRanking ranking;
+
+    @Autowired
+    private ProductRatingService ratingService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void firstRatingIsScoredFromTheCommittedSummary() {
+        Integer productId = createProduct();
+        Integer userId = createUser();
+
+        ProductRatingDTO fiveStars = rating(productId, userId, 5);
+        ratingService.createRating(fiveStars);
+        assertThat(ranking.getTopIds()).contains(productId);
+
+        ProductRatingDTO oneStar = rating(productId, createUser(), 1);
+        Integer oneStarId = ratingService.createRating(oneStar).getId();
+        assertThat(ranking.getTopIds()).as("average 3.0 is below the featured threshold").doesNotContain(productId);
+
+        ratingService.deleteRating(oneStarId);
+        assertThat(ranking.getTopIds()).contains(productId);
+    }
+
+    private ProductRatingDTO rating(Integer productId, Integer userId, int value) {
+        ProductRatingDTO rating = new ProductRatingDTO();
+        rating.setProductId(productId);
+        rating.setUserId(userId);
+        rating.setRating(value);
+        return rating;
+    }
+
+    private Integer createProduct() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Featured " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Rated product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(10);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        return productService.createProduct(product).getId();
+    }
+
+    private Integer createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Rater");
+        user.setEmail("rater" + suffix + "@example.com");
+        user.setUsername("rater" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user).getId();
+    }
+}
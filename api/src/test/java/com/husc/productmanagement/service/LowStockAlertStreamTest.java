@@ -0,0 +1,25 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LowStockAlertStreamTest {
+
+    @Test
+    void subscriptionsAreCappedAndFinite() {
+        LowStockAlertStream stream = new LowStockAlertStream(Duration.ofMinutes(5), 2);
+
+        assertThat(stream.subscribe().getTimeout()).isEqualTo(Duration.ofMinutes(5).toMillis());
+        stream.subscribe();
+        assertThatThrownBy(stream::subscribe)
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(e -> assertThat(((TooManyRequestsException) e).getRetryAfterSeconds()).isPositive());
+        assertThat(stream.getSubscriberCount()).isEqualTo(2);
+        stream.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.ProductManagementApplication;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export throughput in rows per second over a seeded H2 (test profile) dataset of
+ * {@code orders} rows. Each invocation streams the whole table to a discarding stream;
+ * the "rows" counter is the rate to read, "export" is complete exports per second.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class OrderExportBenchmark {
+
+    @Param({ "100000" })
+    public int orders;
+
+    @Param({ "CSV", "NDJSON" })
+    public OrderExportService.Format format;
+
+    private ConfigurableApplicationContext context;
+    private OrderExportService orderExportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductManagementApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run();
+        orderExportService = context.getBean(OrderExportService.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+    }
+
+    @Benchmark
+    public void export(Rows counter) throws Exception {
+        NewlineCounter out = new NewlineCounter();
+        orderExportService.export(format, null, null, null).writeTo(out);
+        // CSV has a header line
+        counter.rows += format == OrderExportService.Format.CSV ? out.lines - 1 : out.lines;
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= orders; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusSeconds(i * 30L));
+            rows.add(new Object[] { i, "BENCH-" + i, "Customer " + i, "customer" + i + "@example.com", "0900000000",
+                    "12 Le Loi, Hue", BigDecimal.valueOf(i % 5_000, 2).add(BigDecimal.TEN), "cod",
+                    i % 3 == 0 ? "paid" : "pending", createdAt, createdAt });
+            if (rows.size() == 5_000) {
+                insert(jdbcTemplate, rows);
+                rows.clear();
+            }
+        }
+        insert(jdbcTemplate, rows);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_code, customer_name, email, phone, address, "
+                + "total_amount, payment_method, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    private static class NewlineCounter extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderExportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,205 @@
+package com.husc.productmanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.husc.productmanagement.util.JwtUtil;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Seeded orders sit in 2001 with ids far above the generator's, so other tests' orders stay out of the exports
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderExportServiceTest {
+
+    private static final int FIRST_ID = 1_500_000_000;
+    private static final String[] STATUSES = { "pending", "paid", "shipped", "cancelled" };
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        deleteSeeded();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteSeeded();
+    }
+
+    @Test
+    void csvIsFilteredByDateAndStatus() throws Exception {
+        // One order a day through January 2001, statuses in rotation
+        seed(31);
+
+        String csv = export("csv", "2001-01-05", "2001-01-12", "paid").getResponse().getContentAsString();
+
+        List<String> lines = csv.lines().toList();
+        assertThat(lines.get(0)).startsWith("id,orderCode,customerName,");
+        assertThat(lines.subList(1, lines.size()))
+                .extracting(line -> line.split(",")[10].substring(0, 10))
+                .containsExactly("2001-01-06", "2001-01-10");
+        assertThat(lines.subList(1, lines.size())).allSatisfy(line -> assertThat(line.split(",")[9]).isEqualTo("paid"));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerOrderInCreationOrder() throws Exception {
+        seed(31);
+
+        MvcResult result = export("ndjson", "2001-01-01", "2001-01-08", null);
+
+        assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson;charset=UTF-8");
+        List<JsonNode> orders = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            orders.add(objectMapper.readTree(line));
+        }
+        assertThat(orders).extracting(order -> order.get("id").asInt())
+                .containsExactly(FIRST_ID, FIRST_ID + 1, FIRST_ID + 2, FIRST_ID + 3, FIRST_ID + 4, FIRST_ID + 5,
+                        FIRST_ID + 6, FIRST_ID + 7);
+        assertThat(orders.get(1).get("status").asText()).isEqualTo("paid");
+        assertThat(orders.get(1).get("totalAmount").decimalValue()).isEqualByComparingTo("101.50");
+        assertThat(orders.get(0).get("userId").isNull()).isTrue();
+    }
+
+    // Rows are scrolled, not collected: the persistence context stays empty and the live heap does not
+    // grow with the rows written. Keeping the rows would cost far more than the allowance
+    @Test
+    void heapStaysFlatWhileStreaming() throws Exception {
+        int rows = 40_000;
+        seed(rows);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] heapAt = new long[2];
+        List<Integer> managedEntities = new ArrayList<>();
+        int[] newlines = new int[1];
+
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                count(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    count(bytes[i]);
+                }
+            }
+
+            private void count(int b) {
+                if (b != '\n') {
+                    return;
+                }
+                newlines[0]++;
+                if (newlines[0] == rows / 10 || newlines[0] == rows) {
+                    managedEntities.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+                    heapAt[newlines[0] == rows ? 1 : 0] = usedHeapAfterGc(memory);
+                }
+            }
+        };
+
+        orderExportService.export(OrderExportService.Format.NDJSON, "2001-01-01", "2001-01-31", null).writeTo(out);
+
+        assertThat(newlines[0]).isEqualTo(rows);
+        assertThat(managedEntities).containsExactly(0, 0);
+        assertThat(heapAt[1] - heapAt[0]).isLessThan(8L * 1024 * 1024);
+    }
+
+    private MvcResult export(String format, String from, String to, String status) throws Exception {
+        MockHttpServletRequestBuilder request = get("/orders/export")
+                .param("format", format)
+                .param("from", from)
+                .param("to", to)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + jwtUtil.generateToken("admin@example.com", 1, "ADMIN"));
+        if (status != null) {
+            request.param("status", status);
+        }
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.CONTENT_DISPOSITION))
+                .andReturn();
+    }
+
+    // Order i is created on 2001-01-01 plus i % 31 days and i / 31 seconds
+    private void seed(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2001, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusDays(i % 31).plusSeconds(i / 31));
+            rows.add(new Object[] { FIRST_ID + i, "EXPORT-" + i, "Customer " + i, "export" + i + "@example.com",
+                    "0900000000", "Hue", BigDecimal.valueOf(100 + i * 1.5), "cod", STATUSES[i % STATUSES.length],
+                    createdAt, createdAt });
+            if (rows.size() == 1000) {
+                insert(rows);
+                rows.clear();
+            }
+        }
+        insert(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_code, customer_name, email, phone, address, "
+                + "total_amount, payment_method, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    private void deleteSeeded() {
+        jdbcTemplate.update("DELETE FROM orders WHERE id >= ?", FIRST_ID);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
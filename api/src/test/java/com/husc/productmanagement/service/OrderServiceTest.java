@@ -0,0 +1,168 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.OrderDTO;
+import com.husc.productmanagement.dto.OrderItemDTO;
+import com.husc.productmanagement.dto.OrderStatusResult;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Orders only move forward through the status table, on the single and the bulk path alike
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer productId;
+
+    @BeforeEach
+    void setUp() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Order status " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Status product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(100);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        productId = productService.createProduct(product).getId();
+    }
+
+    @Test
+    void singleUpdatesOnlyMoveForward() {
+        Integer orderId = createOrder();
+
+        assertThat(orderService.updateOrderStatus(orderId, "confirmed").getStatus()).isEqualTo("confirmed");
+        assertThat(orderService.updateOrderStatus(orderId, "shipped").getStatus()).isEqualTo("shipped");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "pending"))
+                .hasMessage("Cannot change order status from shipped to pending");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "paid"))
+                .hasMessage("Cannot change order status from shipped to paid");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "cancelled"))
+                .hasMessageStartingWith("Cannot cancel order");
+        assertThat(orderService.updateOrderStatus(orderId, "delivered").getStatus()).isEqualTo("delivered");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "shipped"))
+                .hasMessage("Cannot change order status from delivered to shipped");
+    }
+
+    @Test
+    void bulkUpdatesSkipBackwardMoves() {
+        Integer pending = createOrder();
+        Integer delivered = createOrder();
+        orderService.updateOrderStatus(delivered, "confirmed");
+        orderService.updateOrderStatus(delivered, "shipped");
+        orderService.updateOrderStatus(delivered, "delivered");
+        Integer cancelled = createOrder();
+        orderService.cancelOrder(cancelled);
+
+        List<OrderStatusResult> results = orderService.updateOrderStatuses(
+                List.of(pending, delivered, cancelled), null, "paid");
+
+        assertThat(results).extracting(OrderStatusResult::isUpdated).containsExactly(true, false, false);
+        assertThat(results.get(1).getMessage()).isEqualTo("Cannot change order status from delivered to paid");
+        assertThat(orderService.getOrderById(delivered).getStatus()).isEqualTo("delivered");
+        assertThat(orderService.getOrderById(cancelled).getStatus()).isEqualTo("cancelled");
+    }
+
+    // A userId in the body alone does not make the order that user's, nor let it take their cart's holds
+    @Test
+    void onlyTheAuthenticatedOwnerCanUseTheirHolds() {
+        Integer ownerId = createUser();
+        Integer otherId = createUser();
+        assertThat(reservationService.holdForCart(ownerId, productId, 100)).isTrue();
+
+        assertThatThrownBy(() -> orderService.createOrder(order(ownerId, 100), null))
+                .hasMessageStartingWith("Insufficient stock");
+        assertThatThrownBy(() -> orderService.createOrder(order(ownerId, 100), otherId))
+                .hasMessageStartingWith("Insufficient stock");
+        assertThat(reservationService.getAvailability(productId).getReserved()).isEqualTo(100);
+
+        OrderDTO created = orderService.createOrder(order(ownerId, 100), ownerId);
+        assertThat(userIdOf(created)).isEqualTo(ownerId);
+        assertThat(reservationService.getAvailability(productId).getReserved()).isZero();
+    }
+
+    @Test
+    void mismatchedUserIdsPlaceGuestOrders() {
+        Integer ownerId = createUser();
+
+        assertThat(userIdOf(orderService.createOrder(order(ownerId, 1), null))).isNull();
+        assertThat(userIdOf(orderService.createOrder(order(ownerId, 1), createUser()))).isNull();
+        assertThat(userIdOf(orderService.createOrder(order(null, 1), ownerId))).isEqualTo(ownerId);
+    }
+
+    private Integer userIdOf(OrderDTO order) {
+        return jdbcTemplate.queryForObject("SELECT user_id FROM orders WHERE id = ?", Integer.class, order.getId());
+    }
+
+    @Test
+    void createdOrdersShowTheirPendingPayment() {
+        OrderDTO created = orderService.createOrder(order(null, 3), null);
+
+        assertThat(created.getPayments()).singleElement().satisfies(payment -> {
+            assertThat(payment.getId()).isNull();
+            assertThat(payment.getOrderId()).isEqualTo(created.getId());
+            assertThat(payment.getAmount()).isEqualByComparingTo("30");
+            assertThat(payment.getPaymentMethod()).isEqualTo("cod");
+            assertThat(payment.getStatus()).isEqualTo("pending");
+        });
+    }
+
+    private Integer createOrder() {
+        return orderService.createOrder(order(null, 1), null).getId();
+    }
+
+    private OrderDTO order(Integer userId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerName("Guest");
+        order.setEmail("guest@example.com");
+        order.setPhone("0900000000");
+        order.setAddress("Hue");
+        order.setPaymentMethod("cod");
+        order.setUserId(userId);
+        order.setItems(List.of(item));
+        return order;
+    }
+
+    private Integer createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Buyer");
+        user.setEmail("buyer" + suffix + "@example.com");
+        user.setUsername("buyer" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user).getId();
+    }
+}
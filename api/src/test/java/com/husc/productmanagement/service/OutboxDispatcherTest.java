@@ -0,0 +1,125 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.OrderDTO;
+import com.husc.productmanagement.dto.OrderItemDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.entity.OutboxEvent;
+import com.husc.productmanagement.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    private final List<Long> inserted = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllById(inserted);
+    }
+
+    // A whole batch (outbox.batch-size, 100) of backing-off events used to end every drain before newer events were read
+    @Test
+    void backingOffEventsDoNotBlockOtherOrders() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            insert(-i, LocalDateTime.now().plusHours(1));
+        }
+
+        Integer orderId = createOrder();
+
+        assertThat(awaitStatus(orderId, OutboxEvent.Type.ORDER_CREATED, OutboxEvent.Status.DONE)).isTrue();
+    }
+
+    @Test
+    void laterEventsWaitForTheirOrdersBackingOffHead() throws Exception {
+        Integer orderId = createOrder();
+        assertThat(awaitStatus(orderId, OutboxEvent.Type.ORDER_CREATED, OutboxEvent.Status.DONE)).isTrue();
+
+        OutboxEvent head = insert(orderId, LocalDateTime.now().plusHours(1));
+        OutboxEvent later = insert(orderId, LocalDateTime.now());
+        outboxDispatcher.wake();
+        // The unrelated order proves a drain ran past this one
+        Integer otherOrderId = createOrder();
+        assertThat(awaitStatus(otherOrderId, OutboxEvent.Type.ORDER_CREATED, OutboxEvent.Status.DONE)).isTrue();
+
+        assertThat(outboxEventRepository.findById(head.getId()).orElseThrow().getStatus())
+                .isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(outboxEventRepository.findById(later.getId()).orElseThrow().getStatus())
+                .isEqualTo(OutboxEvent.Status.PENDING);
+    }
+
+    private OutboxEvent insert(Integer aggregateId, LocalDateTime availableAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(OutboxEvent.Type.ORDER_STATUS_CHANGED);
+        event.setAggregateId(aggregateId);
+        event.setPayload("{\"from\":\"pending\",\"to\":\"confirmed\"}");
+        event.setAttempts(1);
+        event.setAvailableAt(availableAt);
+        OutboxEvent saved = outboxEventRepository.save(event);
+        inserted.add(saved.getId());
+        return saved;
+    }
+
+    private boolean awaitStatus(Integer orderId, OutboxEvent.Type type, OutboxEvent.Status status)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            boolean reached = outboxEventRepository.findAll().stream()
+                    .anyMatch(e -> e.getAggregateId().equals(orderId) && e.getType() == type && e.getStatus() == status);
+            if (reached) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private Integer createOrder() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Outbox " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Outbox product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(10);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productService.createProduct(product).getId());
+        item.setQuantity(1);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerName("Guest");
+        order.setEmail("guest@example.com");
+        order.setPhone("0900000000");
+        order.setAddress("Hue");
+        order.setPaymentMethod("cod");
+        order.setItems(List.of(item));
+        return orderService.createOrder(order, null).getId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.ProductManagementApplication;
+import com.husc.productmanagement.entity.Order;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.OrderRepository;
+import com.husc.productmanagement.repository.PaymentRepository;
+import com.husc.productmanagement.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a user's payment history as the user's order count grows, over a seeded H2
+ * (test profile) dataset with one payment per order. perOrderQueries is the previous
+ * getPaymentsByUserId (the user's orders, then one payments query per order);
+ * joinedProjection is the current single query; firstPage is the keyset-paged endpoint's
+ * first page, which should stay flat whatever the order count.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentHistoryBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private OrderRepository orderRepository;
+    private PaymentRepository paymentRepository;
+    private TransactionTemplate transactionTemplate;
+    private Integer userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductManagementApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run();
+        paymentService = context.getBean(PaymentService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        paymentRepository = context.getBean(PaymentRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        userId = seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void perOrderQueries(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Order order : orderRepository.findByUserId(userId)) {
+                blackhole.consume(paymentRepository.findByOrderId(order.getId()));
+            }
+        });
+    }
+
+    @Benchmark
+    public void joinedProjection(Blackhole blackhole) {
+        blackhole.consume(paymentService.getPaymentsByUserId(userId));
+    }
+
+    @Benchmark
+    public void firstPage(Blackhole blackhole) {
+        blackhole.consume(paymentService.getPaymentPageByUserId(userId, null, 20));
+    }
+
+    private Integer seed() {
+        User user = new User();
+        user.setName("Benchmark user");
+        user.setEmail("payments@example.com");
+        user.setUsername("payments");
+        user.setPassword("not-a-real-hash");
+        Integer id = context.getBean(UserRepository.class).save(user).getId();
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        for (int i = 1; i <= orders; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusMinutes(i));
+            orderRows.add(new Object[] { i, "BENCH-" + i, "Customer", "payments@example.com", "0900000000", "Hue", id,
+                    BigDecimal.TEN, "cod", "pending", createdAt, createdAt });
+            paymentRows.add(new Object[] { i, BigDecimal.TEN, "cod", "pending" });
+        }
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_code, customer_name, email, phone, address, user_id, "
+                + "total_amount, payment_method, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                orderRows);
+        jdbcTemplate.batchUpdate("INSERT INTO payments (order_id, amount, payment_method, status) VALUES (?, ?, ?, ?)",
+                paymentRows);
+        return id;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PaymentHistoryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CursorPage;
+import com.husc.productmanagement.dto.PaymentDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Seeded orders use ids far above the generator's so they can be removed afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentServiceTest {
+
+    private static final int FIRST_ORDER_ID = 1_600_000_000;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id >= ?", FIRST_ORDER_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE id >= ?", FIRST_ORDER_ID);
+    }
+
+    // Orders come in threes with the same createdAt and some have two payments, so pages end inside ties
+    @Test
+    void pagesWalkEveryPaymentOnceNewestFirst() {
+        Integer userId = createUser();
+        seed(userId, 30);
+        List<PaymentDTO> all = paymentService.getPaymentsByUserId(userId);
+        assertThat(all).hasSize(36);
+
+        List<PaymentDTO> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<PaymentDTO> page = paymentService.getPaymentPageByUserId(userId, cursor, 4);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            assertThat(cursor != null).isEqualTo(page.isHasMore());
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(9);
+        assertThat(walked).extracting(PaymentDTO::getId).doesNotHaveDuplicates()
+                .containsExactlyElementsOf(all.stream().map(PaymentDTO::getId).toList());
+        // Order ids grow with createdAt, so newest first means descending order ids
+        assertThat(walked).extracting(PaymentDTO::getOrderId)
+                .isSortedAccordingTo((a, b) -> Integer.compare(b, a));
+    }
+
+    @Test
+    void otherUsersPaymentsAndBadCursorsAreRejected() {
+        Integer userId = createUser();
+        seed(userId, 3);
+
+        assertThat(paymentService.getPaymentPageByUserId(createUser(), null, 10).getItems()).isEmpty();
+        assertThatThrownBy(() -> paymentService.getPaymentPageByUserId(userId, "not-a-cursor", 10))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    // Order i is created at minute i / 3; every fifth order has a second payment
+    private void seed(Integer userId, int orders) {
+        LocalDateTime start = LocalDateTime.of(2002, 3, 1, 8, 0);
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            int orderId = FIRST_ORDER_ID + i;
+            Timestamp createdAt = Timestamp.valueOf(start.plusMinutes(i / 3));
+            orderRows.add(new Object[] { orderId, "PAYPAGE-" + orderId, "Customer", "customer@example.com",
+                    "0900000000", "Hue", userId, BigDecimal.TEN, "cod", "pending", createdAt, createdAt });
+            paymentRows.add(new Object[] { orderId, BigDecimal.TEN, "cod", "pending" });
+            if (i % 5 == 0) {
+                paymentRows.add(new Object[] { orderId, BigDecimal.ONE, "card", "pending" });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_code, customer_name, email, phone, address, user_id, "
+                + "total_amount, payment_method, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                orderRows);
+        jdbcTemplate.batchUpdate("INSERT INTO payments (order_id, amount, payment_method, status) VALUES (?, ?, ?, ?)",
+                paymentRows);
+    }
+
+    private Integer createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Payer");
+        user.setEmail("payer" + suffix + "@example.com");
+        user.setUsername("payer" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import com.husc.productmanagement.dto.ProductRatingDTO;
+import com.husc.productmanagement.entity.Product;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.ProductRepository;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductRatingServiceTest {
+
+    @Autowired
+    private ProductRatingService ratingService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rebuildRepairsDriftedSummaries() {
+        Integer ratedId = createProduct();
+        Integer unratedId = createProduct();
+        ratingService.createRating(rating(ratedId, createUser(), 5));
+        ratingService.createRating(rating(ratedId, createUser(), 3));
+
+        // Drift both rows: the rated one loses a five-star vote, the unrated one gains a phantom vote
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.applyRatingDelta(ratedId, -5, -1, 0, 0, 0, 0, -1);
+            productRepository.applyRatingDelta(unratedId, 4, 1, 0, 0, 0, 1, 0);
+        });
+
+        assertThat(ratingService.rebuildRatingSummaries(1)).isGreaterThanOrEqualTo(2);
+
+        Product rated = productRepository.findById(ratedId).orElseThrow();
+        assertThat(rated.getRatingSum()).isEqualTo(8L);
+        assertThat(rated.getRatingCount()).isEqualTo(2);
+        assertThat(rated.getRating3Count()).isEqualTo(1);
+        assertThat(rated.getRating5Count()).isEqualTo(1);
+        Product unrated = productRepository.findById(unratedId).orElseThrow();
+        assertThat(unrated.getRatingSum()).isZero();
+        assertThat(unrated.getRatingCount()).isZero();
+        assertThat(unrated.getRating4Count()).isZero();
+    }
+
+    private ProductRatingDTO rating(Integer productId, Integer userId, int value) {
+        ProductRatingDTO rating = new ProductRatingDTO();
+        rating.setProductId(productId);
+        rating.setUserId(userId);
+        rating.setRating(value);
+        return rating;
+    }
+
+    private Integer createProduct() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Rebuild " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Rebuilt product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(10);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        return productService.createProduct(product).getId();
+    }
+
+    private Integer createUser() {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Rater");
+        user.setEmail("rater" + suffix + "@example.com");
+        user.setUsername("rater" + suffix);
+        user.setPassword("not-a-real-hash");
+        return userRepository.save(user).getId();
+    }
+}
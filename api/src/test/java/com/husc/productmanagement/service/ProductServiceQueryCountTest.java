@@ -0,0 +1,94 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Product lists must issue the same number of statements however many products they return
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceQueryCountTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Integer categoryId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Query count " + System.nanoTime());
+        categoryId = categoryService.createCategory(category).getId();
+    }
+
+    @Test
+    void listEndpointsUseConstantStatements() {
+        createProducts(5);
+        Map<String, Long> small = countStatements();
+
+        createProducts(200);
+        Map<String, Long> large = countStatements();
+
+        assertThat(large).isEqualTo(small);
+        assertThat(small).allSatisfy((list, statements) -> assertThat(statements).isLessThanOrEqualTo(3L));
+    }
+
+    private Map<String, Long> countStatements() {
+        return Map.of(
+                "all", statements(productService::getAllProducts),
+                "active", statements(productService::getActiveProducts),
+                "category", statements(() -> productService.getProductsByCategory(categoryId)),
+                "search", statements(() -> productService.searchProducts("Sample")),
+                "filter", statements(() -> productService.filterProducts("Sample", categoryId, null, null,
+                        null, "price_asc", 500)));
+    }
+
+    // Statistics are global, so keep the lowest of a few runs to leave out statements of background jobs
+    private long statements(Supplier<List<ProductDTO>> list) {
+        long fewest = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+            statistics.clear();
+            assertThat(list.get()).isNotEmpty();
+            fewest = Math.min(fewest, statistics.getPrepareStatementCount());
+        }
+        return fewest;
+    }
+
+    private void createProducts(int count) {
+        for (int i = 0; i < count; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Sample product " + i);
+            product.setPrice(BigDecimal.valueOf(100 + i));
+            product.setQuantity(50);
+            product.setCategoryId(categoryId);
+            productService.createProduct(product);
+        }
+    }
+}
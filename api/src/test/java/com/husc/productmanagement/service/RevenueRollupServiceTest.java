@@ -0,0 +1,68 @@
+package com.husc.productmanagement.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Seeded orders sit in 1999 at noon, so their days are the same in the server and the business zone
+@SpringBootTest
+@ActiveProfiles("test")
+class RevenueRollupServiceTest {
+
+    private static final int FIRST_ID = 1_700_000_000;
+    private static final String[] STATUSES = { "paid", "shipped", "pending", "cancelled" };
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM orders WHERE id >= ?", FIRST_ID);
+        revenueRollupService.rebuild(DashboardAggregateService.REVENUE_STATUSES);
+    }
+
+    // A chunk size that does not divide the order count, so buckets are written by several chunks
+    @Test
+    void chunkedRebuildCountsEveryRevenueOrderOnce() {
+        // Order i on 1999-03-01 plus i % 5 days, amount i + 1, statuses in rotation
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(1999, 3, 1 + i % 5, 12, 0));
+            rows.add(new Object[] { FIRST_ID + i, "ROLLUP-" + i, "Customer", "rollup@example.com", "0900000000", "Hue",
+                    BigDecimal.valueOf(i + 1), "cod", STATUSES[i % STATUSES.length], createdAt, createdAt });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_code, customer_name, email, phone, address, "
+                + "total_amount, payment_method, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows);
+
+        revenueRollupService.rebuild(DashboardAggregateService.REVENUE_STATUSES, 3);
+
+        Map<String, BigDecimal> days = revenueRollupService.getRevenue("1999-03-01", "1999-03-31", "day", null);
+        // Paid and shipped orders are those with i % 4 of 0 or 1
+        Map<String, BigDecimal> expected = Map.of(
+                "1999-03-01", BigDecimal.valueOf(1 + 6 + 21 + 26),
+                "1999-03-02", BigDecimal.valueOf(2 + 17 + 22 + 37),
+                "1999-03-03", BigDecimal.valueOf(13 + 18 + 33 + 38),
+                "1999-03-04", BigDecimal.valueOf(9 + 14 + 29 + 34),
+                "1999-03-05", BigDecimal.valueOf(5 + 10 + 25 + 30));
+        assertThat(days).hasSameSizeAs(expected);
+        expected.forEach((day, revenue) -> assertThat(days.get(day)).isEqualByComparingTo(revenue));
+        assertThat(revenueRollupService.getRevenue("1999-03-01", "1999-03-31", "month", null).get("1999-03"))
+                .isEqualByComparingTo("390");
+    }
+}
@@ -0,0 +1,92 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.CategoryDTO;
+import com.husc.productmanagement.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The checkpoint writes only what changed, and only the rows of this node
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationServiceTest {
+
+    private static final int OTHER_NODE = 7;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer productId;
+
+    @BeforeEach
+    void setUp() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Reservations " + System.nanoTime());
+        ProductDTO product = new ProductDTO();
+        product.setName("Reserved product");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(10);
+        product.setCategoryId(categoryService.createCategory(category).getId());
+        productId = productService.createProduct(product).getId();
+    }
+
+    @Test
+    void checkpointUpsertsAndDeletesOnlyThisNodesHolds() {
+        jdbcTemplate.update("INSERT INTO stock_reservations (node_id, owner, product_id, quantity, expires_at) "
+                + "VALUES (?, 'user:1', ?, 4, ?)", OTHER_NODE, productId,
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)));
+
+        assertThat(reservationService.holdForCart(1, productId, 2)).isTrue();
+        reservationService.checkpoint();
+        assertThat(quantities()).containsExactlyInAnyOrder(List.of(0, 2), List.of(OTHER_NODE, 4));
+
+        assertThat(reservationService.holdForCart(1, productId, 3)).isTrue();
+        reservationService.checkpoint();
+        assertThat(quantities()).containsExactlyInAnyOrder(List.of(0, 3), List.of(OTHER_NODE, 4));
+
+        reservationService.release(StockReservationService.cartOwner(1), productId);
+        reservationService.checkpoint();
+        assertThat(quantities()).containsExactly(List.of(OTHER_NODE, 4));
+    }
+
+    @Test
+    void restoreLoadsOnlyThisNodesHolds() {
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusMinutes(5));
+        jdbcTemplate.update("INSERT INTO stock_reservations (node_id, owner, product_id, quantity, expires_at) "
+                + "VALUES (0, 'user:2', ?, 3, ?), (?, 'user:3', ?, 4, ?)",
+                productId, expiresAt, OTHER_NODE, productId, expiresAt);
+
+        reservationService.restore();
+
+        assertThat(reservationService.getAvailability(productId).getReserved()).isEqualTo(3);
+        assertThat(reservationService.getAvailable(productId)).isEqualTo(7);
+        reservationService.releaseAll(StockReservationService.cartOwner(2));
+        reservationService.checkpoint();
+        assertThat(quantities()).containsExactly(List.of(OTHER_NODE, 4));
+    }
+
+    // {node_id, quantity} of the rows of the product
+    private List<List<Integer>> quantities() {
+        return jdbcTemplate.query("SELECT node_id, quantity FROM stock_reservations WHERE product_id = ?",
+                (rs, row) -> List.of(rs.getInt(1), rs.getInt(2)), productId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.husc.productmanagement.service;
+
+import com.husc.productmanagement.dto.ChangePasswordRequest;
+import com.husc.productmanagement.dto.UserDTO;
+import com.husc.productmanagement.entity.User;
+import com.husc.productmanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void changePasswordChecksTheOldPasswordBeforeStoringTheNewOne() throws Exception {
+        Integer userId = createUser("old-password");
+
+        assertThatThrownBy(() -> userService.changePassword(userId, request("not-it", "new-password"))
+                .get(30, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("Incorrect old password");
+        assertThat(passwordEncoder.matches("old-password", storedHash(userId))).isTrue();
+
+        userService.changePassword(userId, request("old-password", "new-password")).get(30, TimeUnit.SECONDS);
+        assertThat(passwordEncoder.matches("new-password", storedHash(userId))).isTrue();
+    }
+
+    @Test
+    void updateUserOnlyHashesWhenAPasswordIsGiven() throws Exception {
+        Integer userId = createUser("old-password");
+        UserDTO rename = new UserDTO();
+        rename.setName("Renamed");
+
+        assertThat(userService.updateUser(userId, rename, false).get(30, TimeUnit.SECONDS).getName()).isEqualTo("Renamed");
+        assertThat(passwordEncoder.matches("old-password", storedHash(userId))).isTrue();
+
+        UserDTO repassword = new UserDTO();
+        repassword.setPassword("new-password");
+        userService.updateUser(userId, repassword, false).get(30, TimeUnit.SECONDS);
+        assertThat(passwordEncoder.matches("new-password", storedHash(userId))).isTrue();
+    }
+
+    private ChangePasswordRequest request(String oldPassword, String newPassword) {
+        ChangePasswordRequest request = new ChangePasswordRequest();
+        request.setOldPassword(oldPassword);
+        request.setNewPassword(newPassword);
+        return request;
+    }
+
+    private String storedHash(Integer userId) {
+        return userRepository.findById(userId).orElseThrow().getPassword();
+    }
+
+    private Integer createUser(String password) {
+        long suffix = System.nanoTime();
+        User user = new User();
+        user.setName("Member");
+        user.setEmail("member" + suffix + "@example.com");
+        user.setUsername("member" + suffix);
+        user.setPassword(passwordEncoder.encode(password));
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,93 @@
+package com.husc.productmanagement.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: validating it and reading email,
+ * userId and role. rebuiltKeyAndParser is the previous JwtUtil (key and parser built on
+ * every call, validateToken parsing twice, one more parse per claim); singleVerification
+ * is validateAndExtract with the verified-token cache disabled; cachedVerification is
+ * validateAndExtract as configured.
+ * Run with: mvn test-compile, then the main method on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "your-secret-key-change-this-in-production-minimum-256-bits";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(SECRET, 86_400_000L, 10_000, Duration.ofMinutes(5));
+        uncached = new JwtUtil(SECRET, 86_400_000L, 0, Duration.ZERO);
+        token = cached.generateToken("user@example.com", 42, "USER");
+    }
+
+    @Benchmark
+    public void rebuiltKeyAndParser(Blackhole blackhole) {
+        if (legacyValidate(token)) {
+            blackhole.consume(legacyClaims(token).getSubject());
+            blackhole.consume(legacyClaims(token).get("userId", Integer.class));
+            blackhole.consume(legacyClaims(token).get("role", String.class));
+        }
+    }
+
+    @Benchmark
+    public void singleVerification(Blackhole blackhole) {
+        blackhole.consume(uncached.validateAndExtract(token).orElseThrow());
+    }
+
+    @Benchmark
+    public void cachedVerification(Blackhole blackhole) {
+        blackhole.consume(cached.validateAndExtract(token).orElseThrow());
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            legacyClaims(token);
+            return !legacyClaims(token).getExpiration().before(new Date());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
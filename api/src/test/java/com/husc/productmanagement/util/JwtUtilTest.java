@@ -0,0 +1,54 @@
+package com.husc.productmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "your-secret-key-change-this-in-production-minimum-256-bits";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 86_400_000L, 100, Duration.ofMinutes(5));
+
+    @Test
+    void extractsThePrincipalFromOneVerification() {
+        String token = jwtUtil.generateToken("user@example.com", 42, "USER");
+
+        JwtPrincipal principal = jwtUtil.validateAndExtract(token).orElseThrow();
+
+        assertThat(principal.getEmail()).isEqualTo("user@example.com");
+        assertThat(principal.getUserId()).isEqualTo(42);
+        assertThat(principal.getRole()).isEqualTo("USER");
+        assertThat(jwtUtil.validateAndExtract(token)).containsSame(principal);
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        String token = jwtUtil.generateToken("user@example.com", 42, "USER");
+        jwtUtil.validateAndExtract(token);
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature)
+                + (token.charAt(signature) == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+        String foreign = new JwtUtil(SECRET.replace('y', 'z'), 86_400_000L, 100, Duration.ofMinutes(5))
+                .generateToken("user@example.com", 42, "ADMIN");
+
+        assertThat(jwtUtil.validateAndExtract(tampered)).isEmpty();
+        assertThat(jwtUtil.validateAndExtract(foreign)).isEmpty();
+        assertThat(jwtUtil.validateAndExtract("not-a-jwt")).isEmpty();
+        assertThat(jwtUtil.validateAndExtract(null)).isEmpty();
+    }
+
+    @Test
+    void cachedTokensStillExpire() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil(SECRET, 1_000L, 100, Duration.ofMinutes(5));
+        String token = shortLived.generateToken("user@example.com", 42, "USER");
+        assertThat(shortLived.validateAndExtract(token)).isPresent();
+
+        Thread.sleep(1_100);
+
+        assertThat(shortLived.validateAndExtract(token)).isEmpty();
+        assertThat(shortLived.validateToken(token)).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.husc.productmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeOrderCodeGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int CODES_PER_THREAD = 250_000;
+
+    @Test
+    void concurrentCodesAreUniqueAndIncreasePerThread() throws Exception {
+        SnowflakeOrderCodeGenerator generator = new SnowflakeOrderCodeGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<String[]>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                String[] codes = new String[CODES_PER_THREAD];
+                for (int j = 0; j < codes.length; j++) {
+                    codes[j] = generator.nextCode();
+                }
+                return codes;
+            });
+        }
+
+        long start = System.nanoTime();
+        List<Future<String[]>> results = executor.invokeAll(workers);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        String[] all = new String[THREADS * CODES_PER_THREAD];
+        int offset = 0;
+        for (Future<String[]> result : results) {
+            String[] codes = result.get();
+            // Same length, so string order is numeric order
+            for (int j = 1; j < codes.length; j++) {
+                assertThat(codes[j]).isGreaterThan(codes[j - 1]);
+            }
+            System.arraycopy(codes, 0, all, offset, codes.length);
+            offset += codes.length;
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertThat(all[i]).isNotEqualTo(all[i - 1]);
+        }
+        assertThat(all).allSatisfy(code -> assertThat(code).matches("ORD\\d{17}07\\d{4}"));
+        System.out.printf("%d codes in %d ms%n", all.length, Duration.ofNanos(elapsed).toMillis());
+    }
+
+    @Test
+    void timestampIsUtcWhateverTheClockZone() {
+        // 02:30 local time occurs twice in Berlin on 2025-10-26, an hour apart
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        Instant first = Instant.parse("2025-10-26T00:30:00Z");
+        Instant second = first.plus(Duration.ofHours(1));
+
+        String before = new SnowflakeOrderCodeGenerator(0, Clock.fixed(first, berlin)).nextCode();
+        String after = new SnowflakeOrderCodeGenerator(0, Clock.fixed(second, berlin)).nextCode();
+
+        assertThat(before).isEqualTo("ORD20251026003000000000000");
+        assertThat(after).isEqualTo("ORD20251026013000000000000");
+    }
+
+    @Test
+    void codesKeepIncreasingWhenTheClockGoesBack() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        SnowflakeOrderCodeGenerator generator = new SnowflakeOrderCodeGenerator(1, clock);
+
+        String first = generator.nextCode();
+        clock.instant = clock.instant.minusSeconds(5);
+        String second = generator.nextCode();
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeOrderCodeGenerator(100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -7,6 +7,7 @@ CREATE TABLE categories (
     id INT NOT NULL AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
     status ENUM('active','inactive') NOT NULL DEFAULT 'active',
+    reorder_threshold INT DEFAULT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id)
@@ -21,12 +22,31 @@ CREATE TABLE products (
     price DECIMAL(10,2) NOT NULL,
     discount_price DECIMAL(10,2) DEFAULT NULL,
     quantity INT NOT NULL DEFAULT 0,
+    reorder_threshold INT DEFAULT NULL,
     status ENUM('active','inactive') NOT NULL DEFAULT 'active',
     category_id INT NOT NULL,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    rating_count INT NOT NULL DEFAULT 0,
+    rating_1_count INT NOT NULL DEFAULT 0,
+    rating_2_count INT NOT NULL DEFAULT 0,
+    rating_3_count INT NOT NULL DEFAULT 0,
+    rating_4_count INT NOT NULL DEFAULT 0,
+    rating_5_count INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id),
-    FOREIGN KEY (category_id) REFERENCES categories(id)
+    FOREIGN KEY (category_id) REFERENCES categories(id),
+    -- Index cho phân trang keyset theo (id), (price, id), (created_at, id)
+    INDEX idx_products_price_id (price, id),
+    INDEX idx_products_created_id (created_at, id),
+    INDEX idx_products_status_id (status, id),
+    INDEX idx_products_status_price_id (status, price, id),
+    INDEX idx_products_status_created_id (status, created_at, id),
+    INDEX idx_products_category_price_id (category_id, price, id),
+    INDEX idx_products_category_created_id (category_id, created_at, id),
+    -- Index cho truy vấn sản phẩm sắp hết hàng
+    INDEX idx_products_status_quantity_id (status, quantity, id),
+    INDEX idx_products_reorder_threshold (reorder_threshold)
 );
 
 -- Bảng users
@@ -61,9 +81,20 @@ CREATE TABLE orders (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id),
+    INDEX idx_orders_created_id (created_at, id),
+    INDEX idx_orders_email_created (email, created_at),
+    INDEX idx_orders_user_created (user_id, created_at),
+    INDEX idx_orders_status_created (status, created_at),
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
+-- Bảng id_generators (cấp id theo lô cho orders, order_details để Hibernate batch insert)
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
 -- Bảng order_details
 CREATE TABLE order_details (
     id INT NOT NULL AUTO_INCREMENT,
@@ -86,7 +117,8 @@ CREATE TABLE payments (
     status ENUM('pending','paid','failed') NOT NULL DEFAULT 'pending',
     paid_at TIMESTAMP NULL,
     PRIMARY KEY (id),
-    FOREIGN KEY (order_id) REFERENCES orders(id)
+    FOREIGN KEY (order_id) REFERENCES orders(id),
+    INDEX idx_payments_order_status (order_id, status)
 );
 
 -- Bảng product_ratings (đánh giá sản phẩm)
@@ -153,3 +185,77 @@ CREATE TABLE user_addresses (
     PRIMARY KEY (id),
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
+
+-- Bảng product_sales_daily (số lượng bán và doanh thu theo sản phẩm, theo ngày)
+CREATE TABLE product_sales_daily (
+    product_id INT NOT NULL,
+    sales_date DATE NOT NULL,
+    quantity_sold BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, sales_date),
+    INDEX idx_product_sales_daily_date (sales_date, product_id)
+);
+
+-- Bảng product_sales_totals (tổng số lượng bán và doanh thu theo sản phẩm)
+CREATE TABLE product_sales_totals (
+    product_id INT NOT NULL,
+    quantity_sold BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id),
+    INDEX idx_product_sales_totals_sold (quantity_sold)
+);
+
+-- Bảng order_status_stats (số đơn và tổng tiền theo trạng thái)
+CREATE TABLE order_status_stats (
+    status VARCHAR(20) NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (status)
+);
+
+-- Bảng revenue_rollups (doanh thu theo giờ UTC, theo ngày/tháng theo múi giờ kinh doanh)
+CREATE TABLE revenue_rollups (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start)
+);
+
+-- Bảng stock_reservations (checkpoint các lượng hàng đang được giữ cho giỏ hàng/thanh toán)
+CREATE TABLE stock_reservations (
+    node_id INT NOT NULL,
+    owner VARCHAR(64) NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    expires_at DATETIME NOT NULL,
+    PRIMARY KEY (node_id, owner, product_id)
+);
+
+-- Bảng outbox_events (tác vụ phụ của đơn hàng, ghi cùng transaction và chạy sau khi commit)
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id INT NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    attempts INT NOT NULL DEFAULT 0,
+    available_at DATETIME NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    processed_at DATETIME NULL,
+    PRIMARY KEY (id),
+    INDEX idx_outbox_events_status_id (status, id),
+    INDEX idx_outbox_events_aggregate_status_id (aggregate_id, status, id)
+);
+
+-- Bảng idempotency_keys (response của request có Idempotency-Key, trả lại cho các lần gửi lại)
+CREATE TABLE idempotency_keys (
+    key_hash VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    content_type VARCHAR(100),
+    body MEDIUMBLOB NOT NULL,
+    expires_at DATETIME NOT NULL,
+    PRIMARY KEY (key_hash),
+    INDEX idx_idempotency_keys_expires (expires_at)
+);
@@ -127,6 +127,19 @@ INSERT INTO order_details (order_id, product_id, quantity, price, subtotal) VALU
 INSERT INTO order_details (order_id, product_id, quantity, price, subtotal) VALUES
 (4, 16, 1, 28990000.00, 28990000.00);
 
+-- Tính sẵn số liệu dashboard từ các đơn hàng trên
+INSERT INTO product_sales_daily (product_id, sales_date, quantity_sold, revenue)
+SELECT d.product_id, DATE(o.created_at), SUM(d.quantity), SUM(d.subtotal)
+FROM order_details d JOIN orders o ON o.id = d.order_id
+WHERE o.status <> 'cancelled'
+GROUP BY d.product_id, DATE(o.created_at);
+
+INSERT INTO product_sales_totals (product_id, quantity_sold, revenue)
+SELECT product_id, SUM(quantity_sold), SUM(revenue) FROM product_sales_daily GROUP BY product_id;
+
+INSERT INTO order_status_stats (status, order_count, total_amount)
+SELECT status, COUNT(*), SUM(total_amount) FROM orders GROUP BY status;
+
 -- =====================================================
 -- 6. PAYMENTS (Thanh toán)
 -- =====================================================
@@ -172,6 +185,19 @@ INSERT INTO product_ratings (product_id, user_id, rating, comment) VALUES
 (23, 4, 5, 'Chống ồn đỉnh cao, âm thanh chi tiết.'),
 (23, 5, 4, 'Đeo lâu hơi nóng tai nhưng chất lượng tốt.');
 
+-- Cập nhật thống kê đánh giá trên bảng products
+UPDATE products p
+LEFT JOIN (
+    SELECT product_id, SUM(rating) AS s, COUNT(*) AS c,
+           SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3,
+           SUM(rating = 4) AS r4, SUM(rating = 5) AS r5
+    FROM product_ratings GROUP BY product_id
+) r ON r.product_id = p.id
+SET p.rating_sum = COALESCE(r.s, 0), p.rating_count = COALESCE(r.c, 0),
+    p.rating_1_count = COALESCE(r.r1, 0), p.rating_2_count = COALESCE(r.r2, 0),
+    p.rating_3_count = COALESCE(r.r3, 0), p.rating_4_count = COALESCE(r.r4, 0),
+    p.rating_5_count = COALESCE(r.r5, 0);
+
 -- =====================================================
 -- 8. WISHLISTS (Danh sách yêu thích)
 -- =====================================================